@@ -0,0 +1,96 @@
+package com.carol.customshop.benchmark;
+
+import com.carol.customshop.dto.AllAvailableOptionsResponse;
+import com.carol.customshop.dto.AttributeOption;
+import com.carol.customshop.dto.AvailableAttributeOptionsResponse;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The uncached path of {@code ProductService.getAvailableOptionsBySelection} and
+ * {@code getAllAvailableOptionsBySelection}: encode the selection against the compiled index, find the available
+ * options and map them to the response. {@link #compileIndex()} measures what a cold or invalidated product costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailableOptionsBenchmark {
+
+    private static final int SELECTIONS = 1024;
+
+    @Param({"5", "20"})
+    private int attributes;
+
+    @Param({"4", "16"})
+    private int optionsPerAttribute;
+
+    @Param({"50", "1000"})
+    private int rules;
+
+    @Param({"0.0", "0.2"})
+    private double overrideDensity;
+
+    private SyntheticCatalog catalog;
+    private ProductConstraintIndex index;
+    private final int[] requestedAttributes = new int[SELECTIONS];
+    private final List<List<Long>> selections = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = SyntheticCatalog.generate(attributes, optionsPerAttribute, rules, overrideDensity, 42);
+        index = catalog.compileIndex();
+
+        Random random = new Random(7);
+        for (int i = 0; i < SELECTIONS; i++) {
+            requestedAttributes[i] = random.nextInt(attributes);
+            selections.add(catalog.randomSelection(random, requestedAttributes[i]));
+        }
+    }
+
+    @Benchmark
+    public AvailableAttributeOptionsResponse availableOptions() {
+        int i = next++ & (SELECTIONS - 1);
+        int attribute = requestedAttributes[i];
+        return response(attribute, index.encodeSelection(selections.get(i), attribute));
+    }
+
+    @Benchmark
+    public AllAvailableOptionsResponse allAvailableOptions() {
+        int i = next++ & (SELECTIONS - 1);
+        long[] selection = index.encodeSelection(selections.get(i));
+
+        List<AvailableAttributeOptionsResponse> responses = new ArrayList<>();
+        for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+            if (index.isAttributeActive(attribute)) {
+                responses.add(response(attribute, index.withoutAttribute(selection, attribute)));
+            }
+        }
+        return new AllAvailableOptionsResponse(index.getProductId(), responses);
+    }
+
+    @Benchmark
+    public ProductConstraintIndex compileIndex() {
+        return catalog.compileIndex();
+    }
+
+    private AvailableAttributeOptionsResponse response(int attribute, long[] selection) {
+        List<AttributeOption> options = new ArrayList<>();
+        for (int ordinal : index.availableOptions(attribute, selection)) {
+            AttributeOption option = new AttributeOption();
+            option.setId(index.optionId(ordinal));
+            option.setName(index.optionName(ordinal));
+            options.add(option);
+        }
+        return new AvailableAttributeOptionsResponse(
+                index.attributeId(attribute), index.attributeName(attribute), options);
+    }
+}
@@ -0,0 +1,84 @@
+package com.carol.customshop.benchmark;
+
+import com.carol.customshop.dto.ProductDetailsResponse;
+import com.carol.customshop.repository.*;
+import com.carol.customshop.service.*;
+import com.carol.customshop.service.constraint.AvailableOptionsCache;
+import com.carol.customshop.service.constraint.ConfigurationSpaceService;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@code ProductService.getProductDetails} over an in-memory product, which is dominated by
+ * {@code buildAttributeResponses} and the not-allowed combination mapping, both of which look up product overrides
+ * for every attribute, option and combination of the product type.
+ * <p>
+ * The overrides are indexed once per call, so at a fixed override density the time should grow linearly with the
+ * number of attributes, options and rules rather than with their product with the override count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductDetailsBenchmark {
+
+    @Param({"5", "20", "80"})
+    private int attributes;
+
+    @Param({"4", "16"})
+    private int optionsPerAttribute;
+
+    @Param({"50", "1000"})
+    private int rules;
+
+    @Param({"0.0", "0.2", "1.0"})
+    private double overrideDensity;
+
+    private ProductService productService;
+    private UUID productId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog =
+                SyntheticCatalog.generate(attributes, optionsPerAttribute, rules, overrideDensity, 42);
+        productId = catalog.getProduct().getId();
+
+        ProductAggregateLoader productAggregateLoader = mock(ProductAggregateLoader.class);
+        when(productAggregateLoader.loadForAdmin(eq(productId), anySet())).thenReturn(catalog.getProduct());
+
+        // Only the aggregate loader is used when reading product details. Typed mocks rather than nulls, so that a
+        // change to the constructor breaks the build of the benchmarks instead of their run.
+        productService = new ProductService(
+                mock(ProductRepository.class),
+                mock(ProductNotAllowedCombinationRepository.class),
+                mock(ProductNACombinationOverrideRepository.class),
+                mock(ProductAttributeOverrideRepository.class),
+                mock(ProductOptionOverrideRepository.class),
+                mock(ProductTypeService.class),
+                mock(FileStorageServiceImpl.class),
+                mock(ProductConstraintIndexService.class),
+                mock(AvailableOptionsCache.class),
+                mock(ConfigurationSpaceService.class),
+                productAggregateLoader,
+                mock(CustomerProductDetailsJsonRepository.class),
+                mock(ProductReadModelService.class),
+                mock(ProductCountService.class),
+                mock(ApplicationEventPublisher.class));
+    }
+
+    @Benchmark
+    public ProductDetailsResponse productDetails() {
+        return productService.getProductDetails(productId);
+    }
+}
@@ -0,0 +1,153 @@
+package com.carol.customshop.benchmark;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+
+import java.util.*;
+
+/**
+ * A randomly generated product type and product, shaped by the benchmark parameters.
+ * <p>
+ * Attribute {@code a} (1-based) has ID {@code a} and options {@code a * 1000 + k}. Each rule forbids one option of
+ * two or three distinct attributes; one rule in five is product-specific. The override density is the share of
+ * options with a product override (half deactivated, half out of stock) and of type rules deactivated for the
+ * product; attributes are deactivated at a quarter of that rate.
+ */
+final class SyntheticCatalog {
+
+    private final ProductType productType = new ProductType();
+    private final Product product = new Product();
+    private final Set<Long> deactivatedAttributes = new HashSet<>();
+    private final Set<Long> deactivatedOptions = new HashSet<>();
+    private final Set<Long> outOfStockOptions = new HashSet<>();
+    private final Set<Long> deactivatedCombinations = new HashSet<>();
+
+    private SyntheticCatalog() {
+    }
+
+    static SyntheticCatalog generate(
+            int attributes, int optionsPerAttribute, int rules, double overrideDensity, long seed
+    ) {
+        Random random = new Random(seed);
+        SyntheticCatalog catalog = new SyntheticCatalog();
+
+        ProductType productType = catalog.productType;
+        productType.setId(new UUID(0, seed));
+        productType.setName("Synthetic");
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+
+        Product product = catalog.product;
+        product.setId(new UUID(1, seed));
+        product.setName("Synthetic product");
+        product.setSku("SYN-" + seed);
+        product.setProductType(productType);
+
+        for (long attributeId = 1; attributeId <= attributes; attributeId++) {
+            ProductTypeAttribute attribute = new ProductTypeAttribute();
+            attribute.setId(attributeId);
+            attribute.setAttributeName("Attribute " + attributeId);
+            attribute.setProductType(productType);
+            for (int k = 0; k < optionsPerAttribute; k++) {
+                ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+                option.setId(attributeId * 1000 + k);
+                option.setName("Option " + option.getId());
+                option.setAttribute(attribute);
+                attribute.getOptions().add(option);
+            }
+            productType.getAttributes().add(attribute);
+
+            if (random.nextDouble() < overrideDensity / 4) {
+                ProductAttributeOverride override = new ProductAttributeOverride();
+                override.setProduct(product);
+                override.setAttribute(attribute);
+                product.getAttributeOverrides().add(override);
+                catalog.deactivatedAttributes.add(attributeId);
+            }
+            for (ProductTypeAttributeOption option : attribute.getOptions()) {
+                if (random.nextDouble() < overrideDensity) {
+                    boolean outOfStock = random.nextBoolean();
+                    ProductOptionOverride override = new ProductOptionOverride();
+                    override.setProduct(product);
+                    override.setOption(option);
+                    override.setActive(outOfStock);
+                    override.setOutOfStock(outOfStock);
+                    product.getOptionOverrides().add(override);
+                    (outOfStock ? catalog.outOfStockOptions : catalog.deactivatedOptions).add(option.getId());
+                }
+            }
+        }
+
+        for (long ruleId = 1; ruleId <= rules; ruleId++) {
+            List<ProductTypeAttribute> shuffled = new ArrayList<>(productType.getAttributes());
+            Collections.shuffle(shuffled, random);
+            List<ProductTypeAttribute> ruleAttributes =
+                    shuffled.subList(0, Math.min(attributes, 2 + random.nextInt(2)));
+
+            if (random.nextInt(5) == 0) {
+                ProductNotAllowedCombination combination = new ProductNotAllowedCombination();
+                combination.setId(ruleId);
+                combination.setProduct(product);
+                List<ProductNotAllowedCombinationElement> elements = new ArrayList<>();
+                for (ProductTypeAttribute attribute : ruleAttributes) {
+                    ProductNotAllowedCombinationElement element = new ProductNotAllowedCombinationElement();
+                    element.setCombination(combination);
+                    element.setAttribute(attribute);
+                    element.setOption(attribute.getOptions().get(random.nextInt(optionsPerAttribute)));
+                    elements.add(element);
+                }
+                combination.setOptions(elements);
+                product.getNotAllowedCombinations().add(combination);
+                continue;
+            }
+
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(ruleId);
+            combination.setProductType(productType);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (ProductTypeAttribute attribute : ruleAttributes) {
+                NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+                element.setNotAllowedCombination(combination);
+                element.setAttribute(attribute);
+                element.setAttributeOption(attribute.getOptions().get(random.nextInt(optionsPerAttribute)));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+
+            if (random.nextDouble() < overrideDensity) {
+                ProductNACombinationOverride override = new ProductNACombinationOverride();
+                override.setProduct(product);
+                override.setNotAllowedCombination(combination);
+                override.setActive(false);
+                product.getNotAllowedCombinationsOverrides().add(override);
+                catalog.deactivatedCombinations.add(ruleId);
+            }
+        }
+
+        return catalog;
+    }
+
+    Product getProduct() {
+        return product;
+    }
+
+    ProductConstraintIndex compileIndex() {
+        return ProductConstraintIndex.compile(product, product.getNotAllowedCombinations(),
+                deactivatedAttributes, deactivatedOptions, outOfStockOptions, deactivatedCombinations);
+    }
+
+    /**
+     * Picks at most one option for each attribute other than the requested one, each with probability one half.
+     */
+    List<Long> randomSelection(Random random, int requestedAttribute) {
+        List<Long> selection = new ArrayList<>();
+        List<ProductTypeAttribute> attributes = productType.getAttributes();
+        for (int attribute = 0; attribute < attributes.size(); attribute++) {
+            if (attribute != requestedAttribute && random.nextBoolean()) {
+                List<ProductTypeAttributeOption> options = attributes.get(attribute).getOptions();
+                selection.add(options.get(random.nextInt(options.size())).getId());
+            }
+        }
+        return selection;
+    }
+}
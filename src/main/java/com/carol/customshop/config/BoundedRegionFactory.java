@@ -0,0 +1,204 @@
+package com.carol.customshop.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hibernate second-level cache held in the JVM heap. Each region is a bounded LRU map: once full, the least recently
+ * read entry is dropped. Hibernate's own access strategies sit on top, so read-write regions keep their soft locks
+ * and entries are invalidated when the transaction that changes them commits.
+ * <p>
+ * Per region, hits, misses, puts and evictions of full regions are published as {@code cache.gets},
+ * {@code cache.puts} and {@code cache.evictions} meters, and the number of entries as {@code cache.size}, so the
+ * regions can be sized from {@code /actuator/metrics}. Lock entries written by read-write regions count as entries.
+ */
+public class BoundedRegionFactory extends RegionFactoryTemplate {
+
+    private final int maxEntries;
+    private final MeterRegistry meterRegistry;
+    private final List<StorageAccess> storages = new CopyOnWriteArrayList<>();
+
+    public BoundedRegionFactory(int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        storages.forEach(StorageAccess::release);
+        storages.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(
+            DomainDataRegionConfig regionConfig, DomainDataRegionBuildingContext buildingContext
+    ) {
+        return register(new RegionStorage(regionConfig.getRegionName(), maxEntries, meterRegistry));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory
+    ) {
+        return register(new RegionStorage(regionName, maxEntries, meterRegistry));
+    }
+
+    // One entry per table: dropping one would make cached query results of that table look current
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory
+    ) {
+        return register(new TimestampsStorage());
+    }
+
+    private <T extends StorageAccess> T register(T storage) {
+        storages.add(storage);
+        return storage;
+    }
+
+    private static final class RegionStorage implements DomainDataStorageAccess {
+
+        private final int maxEntries;
+        private final LinkedHashMap<Object, Object> entries;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong puts = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        RegionStorage(String regionName, int maxEntries, MeterRegistry meterRegistry) {
+            this.maxEntries = maxEntries;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                    if (size() > RegionStorage.this.maxEntries) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+            FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                    .tag("cache", regionName).tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                    .tag("cache", regionName).tag("result", "miss")
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.puts", puts, AtomicLong::get)
+                    .tag("cache", regionName)
+                    .register(meterRegistry);
+            FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                    .tag("cache", regionName)
+                    .register(meterRegistry);
+            Gauge.builder("cache.size", this, RegionStorage::size)
+                    .tag("cache", regionName)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            Object value;
+            synchronized (entries) {
+                value = entries.get(key);
+            }
+            (value != null ? hits : misses).incrementAndGet();
+            return value;
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            synchronized (entries) {
+                entries.put(key, value);
+            }
+            puts.incrementAndGet();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            synchronized (entries) {
+                return entries.containsKey(key);
+            }
+        }
+
+        @Override
+        public void evictData() {
+            synchronized (entries) {
+                entries.clear();
+            }
+        }
+
+        @Override
+        public void evictData(Object key) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+        }
+
+        @Override
+        public void release() {
+            evictData();
+        }
+
+        int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+    }
+
+    private static final class TimestampsStorage implements StorageAccess {
+
+        private final Map<Object, Object> timestamps = new ConcurrentHashMap<>();
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return timestamps.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            timestamps.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return timestamps.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            timestamps.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            timestamps.remove(key);
+        }
+
+        @Override
+        public void release() {
+            evictData();
+        }
+    }
+}
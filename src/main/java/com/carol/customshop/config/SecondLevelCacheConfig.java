@@ -0,0 +1,34 @@
+package com.carol.customshop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Second-level cache for the product type aggregate: product types, their attributes, options and not-allowed
+ * combinations, which are read on almost every request and only written through the admin endpoints.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public BoundedRegionFactory secondLevelCacheRegionFactory(
+            @Value("${catalog.cache.max-entries:10000}") int maxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        return new BoundedRegionFactory(maxEntries, meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(BoundedRegionFactory regionFactory) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            // Adding or removing a child from its own side also evicts the parent's cached collection
+            properties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+        };
+    }
+}
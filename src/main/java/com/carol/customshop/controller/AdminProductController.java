@@ -2,22 +2,35 @@ package com.carol.customshop.controller;
 
 import com.carol.customshop.api.AdminProductApi;
 import com.carol.customshop.dto.*;
+import com.carol.customshop.service.CatalogVersionService;
+import com.carol.customshop.service.ProductSection;
 import com.carol.customshop.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
 @RestController
 public class AdminProductController implements AdminProductApi {
     ProductService productService;
-    public AdminProductController(ProductService productService) {
+    CatalogVersionService catalogVersionService;
+    WebRequest webRequest;
+    public AdminProductController(
+            ProductService productService,
+            CatalogVersionService catalogVersionService,
+            WebRequest webRequest
+    ) {
         this.productService = productService;
+        this.catalogVersionService = catalogVersionService;
+        this.webRequest = webRequest;
     }
     @Override
     public ResponseEntity<ProductCreationResponse> createProduct(
@@ -41,15 +54,22 @@ public class AdminProductController implements AdminProductApi {
     }
 
     @Override
-    public ResponseEntity<ProductListResponse> getAdminProductList(Integer page, Integer size) {
-        ProductListResponse response = productService.getProductList(page, size);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ProductListResponse> getAdminProductList(
+            Integer page, Integer size, String cursor, Boolean includeTotal, String fields
+    ) {
+        Set<ProductSection> sections = ProductSection.parse(fields, ProductSection.LIST_ITEM);
+        // Lists depend on every product, so they are versioned by the whole catalog
+        return ConditionalResponses.ifNoneMatch(webRequest,
+                Optional.of(catalogVersionService.getCurrentVersion()),
+                () -> productService.getAdminProductList(page, size, cursor, includeTotal, sections));
     }
 
     @Override
-    public ResponseEntity<ProductDetailsResponse> getProductDetails(UUID productId) {
-        ProductDetailsResponse productDetails = productService.getProductDetails(productId);
-        return ResponseEntity.ok(productDetails);
+    public ResponseEntity<ProductDetailsResponse> getProductDetails(UUID productId, String fields) {
+        Set<ProductSection> sections = ProductSection.parse(fields, ProductSection.ADMIN_DETAILS);
+        return ConditionalResponses.ifNoneMatch(webRequest,
+                catalogVersionService.getProductVersion(productId),
+                () -> productService.getProductDetails(productId, sections));
     }
 
     @Override
@@ -2,10 +2,12 @@ package com.carol.customshop.controller;
 
 import com.carol.customshop.api.AdminProductTypesApi;
 import com.carol.customshop.dto.*;
+import com.carol.customshop.service.CatalogVersionService;
 import com.carol.customshop.service.ProductTypeService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -14,9 +16,17 @@ import java.util.UUID;
 public class AdminProductTypeController implements AdminProductTypesApi {
 
     private final ProductTypeService productTypeService;
+    private final CatalogVersionService catalogVersionService;
+    private final WebRequest webRequest;
 
-    public AdminProductTypeController(ProductTypeService productTypeService) {
+    public AdminProductTypeController(
+            ProductTypeService productTypeService,
+            CatalogVersionService catalogVersionService,
+            WebRequest webRequest
+    ) {
         this.productTypeService = productTypeService;
+        this.catalogVersionService = catalogVersionService;
+        this.webRequest = webRequest;
     }
 
     @Override
@@ -32,8 +42,9 @@ public class AdminProductTypeController implements AdminProductTypesApi {
 
     @Override
     public ResponseEntity<ProductTypeDetailsResponse> getProductTypeDetails(UUID productTypeId) {
-        ProductTypeDetailsResponse response = productTypeService.getProductTypeDetails(productTypeId);
-        return ResponseEntity.ok(response);
+        return ConditionalResponses.ifNoneMatch(webRequest,
+                catalogVersionService.getProductTypeVersion(productTypeId),
+                () -> productTypeService.getProductTypeDetails(productTypeId));
     }
 
     @Override
@@ -57,9 +68,8 @@ public class AdminProductTypeController implements AdminProductTypesApi {
 
     @Override
     public ResponseEntity addNotAllowedCombinations(NotAllowedCombinationsRequest notAllowedCombinationsRequest) {
-        productTypeService.addNotAllowedCombinations(notAllowedCombinationsRequest);
-
-        AddNotAllowedCombinations200Response response = new AddNotAllowedCombinations200Response();
+        AddNotAllowedCombinations200Response response =
+                productTypeService.addNotAllowedCombinations(notAllowedCombinationsRequest);
         response.setMessage("Not-allowed combinations added successfully.");
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,37 @@
+package com.carol.customshop.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support for the catalog endpoints. The ETag is derived from a version that is cheap to read, and
+ * compared with {@code If-None-Match} before the response body is built, so unchanged resources cost one lookup.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static String eTag(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * 304 when the request already has the representation of this version, otherwise the body with its ETag. Without
+     * a version (e.g. the resource does not exist) the body is built unconditionally, so its errors surface as usual.
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(WebRequest request, Optional<?> version, Supplier<T> body) {
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(body.get());
+        }
+        String eTag = eTag(version.get());
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body.get());
+    }
+}
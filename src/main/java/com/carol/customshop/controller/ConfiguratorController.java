@@ -0,0 +1,44 @@
+package com.carol.customshop.controller;
+
+import com.carol.customshop.api.ConfiguratorApi;
+import com.carol.customshop.dto.ConfigurationDeltaResponse;
+import com.carol.customshop.dto.ConfigurationSelectionRequest;
+import com.carol.customshop.dto.ConfigurationSessionResponse;
+import com.carol.customshop.service.ConfigurationSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+public class ConfiguratorController implements ConfiguratorApi {
+
+    private final ConfigurationSessionService configurationSessionService;
+
+    public ConfiguratorController(ConfigurationSessionService configurationSessionService) {
+        this.configurationSessionService = configurationSessionService;
+    }
+
+    @Override
+    public ResponseEntity<ConfigurationSessionResponse> createConfigurationSession(UUID productId) {
+        ConfigurationSessionResponse response = configurationSessionService.createSession(productId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Override
+    public ResponseEntity<ConfigurationDeltaResponse> updateConfigurationSelection(
+            UUID sessionId,
+            ConfigurationSelectionRequest configurationSelectionRequest
+    ) {
+        ConfigurationDeltaResponse response =
+                configurationSessionService.updateSelection(sessionId, configurationSelectionRequest);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<Void> deleteConfigurationSession(UUID sessionId) {
+        configurationSessionService.deleteSession(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
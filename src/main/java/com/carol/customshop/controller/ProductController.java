@@ -1,15 +1,26 @@
 package com.carol.customshop.controller;
 
 import com.carol.customshop.api.ProductApi;
+import com.carol.customshop.dto.AllAvailableOptionsResponse;
 import com.carol.customshop.dto.AvailableAttributeOptionsResponse;
+import com.carol.customshop.dto.ProductDetailsBatchResponse;
 import com.carol.customshop.dto.ProductDetailsCustomerResponse;
 import com.carol.customshop.dto.ProductListResponse;
+import com.carol.customshop.service.CatalogSnapshot;
+import com.carol.customshop.service.CatalogSnapshotService;
+import com.carol.customshop.service.CatalogVersionService;
+import com.carol.customshop.service.ProductDetailsCoalescer;
+import com.carol.customshop.service.ProductSection;
 import com.carol.customshop.service.ProductService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -17,9 +28,23 @@ import java.util.stream.Collectors;
 public class ProductController implements ProductApi {
 
     ProductService productService;
+    ProductDetailsCoalescer productDetailsCoalescer;
+    CatalogVersionService catalogVersionService;
+    CatalogSnapshotService catalogSnapshotService;
+    WebRequest webRequest;
 
-    public ProductController(ProductService productService) {
+    public ProductController(
+            ProductService productService,
+            ProductDetailsCoalescer productDetailsCoalescer,
+            CatalogVersionService catalogVersionService,
+            CatalogSnapshotService catalogSnapshotService,
+            WebRequest webRequest
+    ) {
         this.productService = productService;
+        this.productDetailsCoalescer = productDetailsCoalescer;
+        this.catalogVersionService = catalogVersionService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.webRequest = webRequest;
     }
 
     @Override
@@ -28,12 +53,7 @@ public class ProductController implements ProductApi {
             Long requestedAttributeId,
             String selectedOptionIds
     ) {
-        // Parse selected option IDs from CSV format (e.g., "2,6,9" → List<Long>)
-        List<Long> selectedOptions = Arrays.stream(selectedOptionIds.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(Long::parseLong)
-                .collect(Collectors.toList());
+        List<Long> selectedOptions = parseOptionIds(selectedOptionIds);
 
         // Call service to get available options
         AvailableAttributeOptionsResponse response = productService.getAvailableOptionsBySelection(
@@ -43,14 +63,83 @@ public class ProductController implements ProductApi {
     }
 
     @Override
-    public ResponseEntity<ProductDetailsCustomerResponse> getProductDetailsForCustomer(UUID productId) {
-        ProductDetailsCustomerResponse response = productService.getProductDetailsForCustomer(productId);
+    public ResponseEntity<AllAvailableOptionsResponse> getAllAvailableOptions(
+            UUID productId,
+            String selectedOptionIds
+    ) {
+        List<Long> selectedOptions = parseOptionIds(selectedOptionIds);
+
+        AllAvailableOptionsResponse response =
+                productService.getAllAvailableOptionsBySelection(productId, selectedOptions);
+
         return ResponseEntity.ok(response);
     }
 
     @Override
-    public ResponseEntity<ProductListResponse> getProductList(Integer page, Integer size) {
-        ProductListResponse response = productService.getProductList(page, size);
+    public ResponseEntity<ProductDetailsCustomerResponse> getProductDetailsForCustomer(UUID productId, String fields) {
+        Set<ProductSection> sections = ProductSection.parse(fields, ProductSection.CUSTOMER_DETAILS);
+        // One snapshot per request, so that the ETag and the body describe the same state
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return ConditionalResponses.ifNoneMatch(webRequest,
+                    snapshot.get().getProductVersion(productId),
+                    () -> productService.getProductDetailsForCustomer(snapshot.get(), productId, sections));
+        }
+        Optional<Long> version = catalogVersionService.getProductVersion(productId);
+        if (productService.rendersProductDetailsJsonForCustomer(sections)) {
+            return rawJson(ConditionalResponses.ifNoneMatch(webRequest, version,
+                    () -> productDetailsCoalescer.getProductDetailsJsonForCustomer(productId, version.orElse(null))));
+        }
+        return ConditionalResponses.ifNoneMatch(webRequest, version,
+                () -> productDetailsCoalescer.getProductDetailsForCustomer(productId, version.orElse(null), sections));
+    }
+
+    @Override
+    public ResponseEntity<ProductDetailsBatchResponse> getProductDetailsBatchForCustomer(List<UUID> ids) {
+        ProductDetailsBatchResponse response = catalogSnapshotService.current()
+                .map(snapshot -> productService.getProductDetailsBatchForCustomer(snapshot, ids))
+                .orElseGet(() -> productService.getProductDetailsBatchForCustomer(ids));
         return ResponseEntity.ok(response);
     }
+
+    @Override
+    public ResponseEntity<ProductListResponse> getProductList(
+            Integer page, Integer size, String cursor, Boolean includeTotal, String fields
+    ) {
+        Set<ProductSection> sections = ProductSection.parse(fields, ProductSection.LIST_ITEM);
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return ConditionalResponses.ifNoneMatch(webRequest,
+                    Optional.of(snapshot.get().getListVersion()),
+                    () -> productService.getProductList(snapshot.get(), page, size, cursor, includeTotal, sections));
+        }
+        // Lists depend on every product, so they are versioned by the whole catalog
+        return ConditionalResponses.ifNoneMatch(webRequest,
+                Optional.of(catalogVersionService.getCurrentVersion()),
+                () -> productService.getProductList(page, size, cursor, includeTotal, sections));
+    }
+
+    // A document rendered by the database is written as is: a String body goes through the String converter, which
+    // does not quote it. The operation only produces JSON, so no other converter is asked to write it. The body's
+    // type differs from the one the API declares, hence the cast.
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> rawJson(ResponseEntity<String> response) {
+        ResponseEntity<String> json = ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.getBody());
+        return (ResponseEntity<T>) (ResponseEntity<?>) json;
+    }
+
+    // Parse selected option IDs from CSV format (e.g., "2,6,9" → List<Long>)
+    private List<Long> parseOptionIds(String optionIds) {
+        if (optionIds == null) {
+            return List.of();
+        }
+        return Arrays.stream(optionIds.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Long::parseLong)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,49 @@
+package com.carol.customshop.entity;
+
+import com.carol.customshop.event.CatalogChangedEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One catalog change, keyed by the catalog version it produced. Nodes that missed the notification of a change read
+ * it back from here. Rows older than the version every node has applied can be deleted.
+ */
+@Entity
+@Table(name = "catalog_change")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChange {
+
+    @Id
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CatalogChangedEvent.Scope scope;
+
+    @Column(nullable = false)
+    private UUID entityId;
+
+    // The node that made the change, which has already applied it
+    @Column(nullable = false)
+    private String origin;
+
+    // Notification payload: version:scope:entityId:origin
+    public String toPayload() {
+        return version + ":" + scope + ":" + entityId + ":" + origin;
+    }
+
+    public static CatalogChange fromPayload(String payload) {
+        String[] parts = payload.split(":", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid catalog change: " + payload);
+        }
+        return new CatalogChange(Long.parseLong(parts[0]), CatalogChangedEvent.Scope.valueOf(parts[1]),
+                UUID.fromString(parts[2]), parts[3]);
+    }
+}
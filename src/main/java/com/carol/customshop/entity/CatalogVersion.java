@@ -0,0 +1,30 @@
+package com.carol.customshop.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single-row counter bumped by every change to products, product types or their rules.
+ */
+@Entity
+@Table(name = "catalog_version")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CatalogVersion {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private long version;
+
+    public CatalogVersion(long version) {
+        this.id = SINGLETON_ID;
+        this.version = version;
+    }
+}
@@ -4,10 +4,14 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "not_allowed_combinations")
 @Getter
 @Setter
@@ -24,6 +28,7 @@ public class NotAllowedCombination {
     private ProductType productType;
 
     // Each NotAllowedCombination consists of multiple attribute-option pairs
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(
             mappedBy = "notAllowedCombination",
             cascade = CascadeType.ALL,
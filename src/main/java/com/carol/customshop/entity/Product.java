@@ -4,13 +4,15 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "products")
+// The (name, id) index serves the keyset pages of the product list
+@Table(name = "products", indexes = @Index(name = "idx_products_name_id", columnList = "name, id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,6 +34,11 @@ public class Product {
 
     private String mainPicture;
 
+    // Bumped with a bulk update on every change to the product, its overrides or its type, never written by flushes
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long version;
+
     @ElementCollection
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
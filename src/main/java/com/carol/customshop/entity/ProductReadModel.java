@@ -0,0 +1,45 @@
+package com.carol.customshop.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Denormalized customer view of a product, rebuilt whenever the product or its type changes.
+ * Documents are the JSON of the customer DTOs, with image file names rather than URLs.
+ */
+@Entity
+// The (name, product_id) index serves the keyset pages of the product list
+@Table(
+        name = "product_read_model",
+        indexes = @Index(name = "idx_product_read_model_name_id", columnList = "name, product_id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductReadModel {
+
+    @Id
+    private UUID productId;
+
+    // Sort key of the product list
+    @Column(nullable = false)
+    private String name;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(nullable = false)
+    private String customerDetails;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(nullable = false)
+    private String listItem;
+
+    @Column(nullable = false)
+    private LocalDateTime refreshedAt;
+}
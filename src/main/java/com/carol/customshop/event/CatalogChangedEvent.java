@@ -0,0 +1,43 @@
+package com.carol.customshop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a product or a product type is created, modified or deleted.
+ * Components holding derived catalog data listen to it to drop what became stale.
+ * <p>
+ * Changes made on another node are published again as remote events, once they have committed. The database already
+ * reflects them, so listeners that write derived data skip remote events; those holding data in memory do not.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CatalogChangedEvent {
+
+    public enum Scope {
+        PRODUCT,
+        PRODUCT_TYPE
+    }
+
+    private final Scope scope;
+
+    private final UUID id;
+
+    private final boolean remote;
+
+    public static CatalogChangedEvent product(UUID productId) {
+        return new CatalogChangedEvent(Scope.PRODUCT, productId, false);
+    }
+
+    public static CatalogChangedEvent productType(UUID productTypeId) {
+        return new CatalogChangedEvent(Scope.PRODUCT_TYPE, productTypeId, false);
+    }
+
+    public static CatalogChangedEvent remote(Scope scope, UUID id) {
+        return new CatalogChangedEvent(scope, id, true);
+    }
+}
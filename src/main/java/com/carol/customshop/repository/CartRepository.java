@@ -3,13 +3,20 @@ package com.carol.customshop.repository;
 import com.carol.customshop.entity.CartItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CartRepository extends JpaRepository<CartItem, UUID> {
 
+    @EntityGraph(attributePaths = "product")
     Page<CartItem> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "selectedOptions")
+    List<CartItem> findWithSelectedOptionsByIdIn(Collection<UUID> ids);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.carol.customshop.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Sends catalog changes to the other nodes over a PostgreSQL notification channel. Notifications sent in a
+ * transaction are delivered when it commits, and not at all if it rolls back. The statement is PostgreSQL-specific.
+ */
+@Repository
+public class CatalogChangeNotificationRepository {
+
+    public static final String CHANNEL = "catalog_changes";
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogChangeNotificationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void notify(String payload) {
+        jdbcTemplate.query(NOTIFY_SQL, resultSet -> null, CHANNEL, payload);
+    }
+}
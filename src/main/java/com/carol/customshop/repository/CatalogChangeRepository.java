@@ -0,0 +1,18 @@
+package com.carol.customshop.repository;
+
+import com.carol.customshop.entity.CatalogChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findByVersionGreaterThanOrderByVersion(long version);
+
+    @Query("SELECT MAX(c.version) FROM CatalogChange c")
+    Optional<Long> findLatestVersion();
+}
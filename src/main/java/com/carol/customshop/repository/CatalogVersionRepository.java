@@ -0,0 +1,27 @@
+package com.carol.customshop.repository;
+
+import com.carol.customshop.entity.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+
+    // Portable insert-if-absent; a concurrent insert of the row still fails on the primary key
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO catalog_version (id, version) SELECT " + CatalogVersion.SINGLETON_ID + ", 0 "
+            + "WHERE NOT EXISTS (SELECT 1 FROM catalog_version WHERE id = " + CatalogVersion.SINGLETON_ID + ")",
+            nativeQuery = true)
+    int insertIfAbsent();
+
+    @Modifying
+    @Query("UPDATE CatalogVersion c SET c.version = c.version + 1 WHERE c.id = " + CatalogVersion.SINGLETON_ID)
+    int increment();
+
+    @Query("SELECT c.version FROM CatalogVersion c WHERE c.id = " + CatalogVersion.SINGLETON_ID)
+    long findVersion();
+}
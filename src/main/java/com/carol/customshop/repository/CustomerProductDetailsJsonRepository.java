@@ -0,0 +1,71 @@
+package com.carol.customshop.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Builds the customer product details document in PostgreSQL with one statement, without loading any entity.
+ * <p>
+ * The document has the shape of {@code ProductDetailsCustomerResponse}: deactivated attributes are left out, as are
+ * options that are deactivated or out of stock for the product, and image file names are prefixed with the given
+ * base URL. {@code json_build_object} is used rather than {@code jsonb_build_object} so that keys keep the order
+ * of the generated DTO.
+ */
+@Repository
+public class CustomerProductDetailsJsonRepository {
+
+    private static final String CUSTOMER_DETAILS_SQL = """
+            SELECT json_build_object(
+                'id', p.id,
+                'name', p.name,
+                'sku', p.sku,
+                'description', p.description,
+                'price', p.price,
+                'mainPicture', :baseUrl || p.main_picture,
+                'imageGallery', COALESCE(
+                    (SELECT json_agg(:baseUrl || i.image_url)
+                     FROM product_images i
+                     WHERE i.product_id = p.id),
+                    '[]'::json),
+                'productAttributes', COALESCE(
+                    (SELECT json_agg(json_build_object(
+                        'id', a.id,
+                        'name', a.attribute_name,
+                        'options', COALESCE(
+                            (SELECT json_agg(json_build_object('id', o.id, 'name', o.name) ORDER BY o.id)
+                             FROM product_type_attribute_options o
+                             WHERE o.attribute_id = a.id
+                               AND NOT EXISTS (
+                                   SELECT 1 FROM product_option_overrides oo
+                                   WHERE oo.product_id = p.id AND oo.option_id = o.id
+                                     AND (NOT oo.active OR oo.out_of_stock))),
+                            '[]'::json)
+                     ) ORDER BY a.id)
+                     FROM product_type_attributes a
+                     WHERE a.product_type_id = p.product_type_id
+                       AND NOT EXISTS (
+                           SELECT 1 FROM product_attribute_overrides ao
+                           WHERE ao.product_id = p.id AND ao.attribute_id = a.id AND NOT ao.active)),
+                    '[]'::json)
+            )::text
+            FROM products p
+            WHERE p.id = :productId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CustomerProductDetailsJsonRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<String> findCustomerDetailsJson(UUID productId, String baseUrl) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("productId", productId)
+                .addValue("baseUrl", baseUrl);
+        return jdbcTemplate.queryForList(CUSTOMER_DETAILS_SQL, parameters, String.class).stream().findFirst();
+    }
+}
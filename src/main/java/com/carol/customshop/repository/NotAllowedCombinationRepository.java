@@ -1,9 +1,20 @@
-
 package com.carol.customshop.repository;
 
 import com.carol.customshop.entity.NotAllowedCombination;
+import com.carol.customshop.entity.ProductType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface NotAllowedCombinationRepository extends JpaRepository<NotAllowedCombination, Long> {}
\ No newline at end of file
+public interface NotAllowedCombinationRepository extends JpaRepository<NotAllowedCombination, Long> {
+
+    @EntityGraph(attributePaths = "options")
+    List<NotAllowedCombination> findWithOptionsByProductType(ProductType productType);
+
+    @EntityGraph(attributePaths = "productType")
+    List<NotAllowedCombination> findWithProductTypeByIdIn(Collection<Long> ids);
+}
@@ -5,9 +5,12 @@ import com.carol.customshop.entity.ProductAttributeOverride;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductAttributeOverrideRepository extends JpaRepository<ProductAttributeOverride, Long> {
     List<ProductAttributeOverride> findByProductAndActiveFalse(Product product);
+
+    List<ProductAttributeOverride> findByProductInAndActiveFalse(Collection<Product> products);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.carol.customshop.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Reads the planner's estimate of the number of products from {@code pg_class.reltuples}, which autovacuum and
+ * {@code ANALYZE} keep up to date. The statement is PostgreSQL-specific.
+ */
+@Repository
+public class ProductCountEstimateRepository {
+
+    private static final String ESTIMATE_SQL =
+            "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('products' AS regclass)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductCountEstimateRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Empty while the table has never been analyzed, when PostgreSQL reports -1
+    public Optional<Long> estimateProductCount() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+        return estimate != null && estimate >= 0 ? Optional.of(estimate) : Optional.empty();
+    }
+}
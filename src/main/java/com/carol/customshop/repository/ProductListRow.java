@@ -0,0 +1,18 @@
+package com.carol.customshop.repository;
+
+import java.util.UUID;
+
+/**
+ * The columns of a product list item, selected by constructor expression so that listing products neither loads
+ * {@code Product} entities nor their product types.
+ */
+public record ProductListRow(
+        UUID id,
+        String name,
+        String description,
+        String sku,
+        String productTypeName,
+        Float price,
+        String mainPicture
+) {
+}
@@ -3,12 +3,20 @@ package com.carol.customshop.repository;
 
 import com.carol.customshop.entity.Product;
 import com.carol.customshop.entity.ProductNotAllowedCombination;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface ProductNotAllowedCombinationRepository extends JpaRepository<ProductNotAllowedCombination, Long> {
     List<ProductNotAllowedCombination> findByProduct(Product product);
+
+    @EntityGraph(attributePaths = "options")
+    List<ProductNotAllowedCombination> findWithOptionsByProduct(Product product);
+
+    @EntityGraph(attributePaths = {"options", "options.option"})
+    List<ProductNotAllowedCombination> findWithOptionsByProductProductTypeId(UUID productTypeId);
 }
\ No newline at end of file
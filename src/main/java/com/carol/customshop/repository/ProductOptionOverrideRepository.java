@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +19,8 @@ public interface ProductOptionOverrideRepository extends JpaRepository<ProductOp
     List<ProductOptionOverride> findByProductAndActiveFalse(Product product);
 
     List<ProductOptionOverride> findByProductAndOutOfStockTrue(Product product);
+
+    List<ProductOptionOverride> findByProductInAndActiveFalse(Collection<Product> products);
+
+    List<ProductOptionOverride> findByProductInAndOutOfStockTrue(Collection<Product> products);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.carol.customshop.repository;
+
+import com.carol.customshop.entity.ProductReadModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProductReadModelRepository extends JpaRepository<ProductReadModel, UUID> {
+
+    @Query("SELECT p.id FROM Product p WHERE NOT EXISTS (SELECT 1 FROM ProductReadModel r WHERE r.productId = p.id)")
+    List<UUID> findProductIdsWithoutReadModel();
+
+    Slice<ProductReadModel> findSliceBy(Pageable pageable);
+
+    // Keyset page of the product list: the rows after (name, productId)
+    @Query("SELECT r FROM ProductReadModel r WHERE r.name > :name OR (r.name = :name AND r.productId > :productId) "
+            + "ORDER BY r.name, r.productId")
+    List<ProductReadModel> findPageAfter(
+            @Param("name") String name, @Param("productId") UUID productId, Pageable pageable);
+}
@@ -1,9 +1,90 @@
 package com.carol.customshop.repository;
 import com.carol.customshop.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Besides the plain CRUD methods, the {@code findWith...ById} methods each fetch one collection of the product
+ * aggregate. Hibernate cannot join-fetch several bags in one query, so read paths call the ones they need in turn
+ * within a transaction, and every collection is loaded by exactly one query whatever its size.
+ */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {}
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, UUID> {
+
+    // Product list rows: the list columns and the type name in one query, without loading entities
+    @Query(value = "SELECT new com.carol.customshop.repository.ProductListRow("
+            + "p.id, p.name, p.description, p.sku, t.name, p.price, p.mainPicture) "
+            + "FROM Product p JOIN p.productType t",
+            countQuery = "SELECT count(p) FROM Product p")
+    Page<ProductListRow> findListRows(Pageable pageable);
+
+    // The same rows without the count
+    @Query("SELECT new com.carol.customshop.repository.ProductListRow("
+            + "p.id, p.name, p.description, p.sku, t.name, p.price, p.mainPicture) "
+            + "FROM Product p JOIN p.productType t")
+    Slice<ProductListRow> findListRowSlice(Pageable pageable);
+
+    // Keyset page of the product list rows: the products after (name, id)
+    @Query("SELECT new com.carol.customshop.repository.ProductListRow("
+            + "p.id, p.name, p.description, p.sku, t.name, p.price, p.mainPicture) "
+            + "FROM Product p JOIN p.productType t "
+            + "WHERE p.name > :name OR (p.name = :name AND p.id > :id) ORDER BY p.name, p.id")
+    List<ProductListRow> findListRowsAfter(@Param("name") String name, @Param("id") UUID id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "productType")
+    Optional<Product> findWithTypeById(UUID id);
+
+    @EntityGraph(attributePaths = {"productType", "productType.attributes"})
+    Optional<Product> findWithTypeAttributesById(UUID id);
+
+    @EntityGraph(attributePaths = "imageGallery")
+    Optional<Product> findWithImageGalleryById(UUID id);
+
+    @EntityGraph(attributePaths = {"productType", "productType.attributes"})
+    List<Product> findWithTypeAttributesByIdIn(Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "imageGallery")
+    List<Product> findWithImageGalleryByIdIn(Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "attributeOverrides")
+    Optional<Product> findWithAttributeOverridesById(UUID id);
+
+    @EntityGraph(attributePaths = "optionOverrides")
+    Optional<Product> findWithOptionOverridesById(UUID id);
+
+    @EntityGraph(attributePaths = "notAllowedCombinationsOverrides")
+    Optional<Product> findWithNotAllowedCombinationsOverridesById(UUID id);
+
+    @EntityGraph(attributePaths = "notAllowedCombinations")
+    Optional<Product> findWithNotAllowedCombinationsById(UUID id);
+
+    @Query("SELECT p.version FROM Product p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.version = p.version + 1 WHERE p.id = :id")
+    int incrementVersion(@Param("id") UUID id);
+
+    // Product details include the type's attributes and rules, so type changes move the products' versions too
+    @Modifying
+    @Query("UPDATE Product p SET p.version = p.version + 1 WHERE p.productType.id = :productTypeId")
+    int incrementVersionByProductTypeId(@Param("productTypeId") UUID productTypeId);
+
+    @Query("SELECT p.id FROM Product p WHERE p.productType.id = :productTypeId")
+    List<UUID> findIdsByProductTypeId(@Param("productTypeId") UUID productTypeId);
+
+    @Query("SELECT p.id FROM Product p")
+    List<UUID> findAllIds();
+}
@@ -1,8 +1,16 @@
 package com.carol.customshop.repository;
 
 import com.carol.customshop.entity.ProductTypeAttributeOption;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface ProductTypeAttributeOptionRepository extends JpaRepository<ProductTypeAttributeOption, Long> {}
\ No newline at end of file
+public interface ProductTypeAttributeOptionRepository extends JpaRepository<ProductTypeAttributeOption, Long> {
+
+    @EntityGraph(attributePaths = {"attribute", "attribute.productType"})
+    List<ProductTypeAttributeOption> findWithAttributeByIdIn(Collection<Long> ids);
+}
@@ -1,8 +1,23 @@
 package com.carol.customshop.repository;
 
+import com.carol.customshop.entity.ProductType;
 import com.carol.customshop.entity.ProductTypeAttribute;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface ProductTypeAttributeRepository extends JpaRepository<ProductTypeAttribute, Long> {}
\ No newline at end of file
+public interface ProductTypeAttributeRepository extends JpaRepository<ProductTypeAttribute, Long> {
+
+    @EntityGraph(attributePaths = "options")
+    List<ProductTypeAttribute> findWithOptionsByProductType(ProductType productType);
+
+    @EntityGraph(attributePaths = "options")
+    List<ProductTypeAttribute> findWithOptionsByProductTypeIn(Collection<ProductType> productTypes);
+
+    @EntityGraph(attributePaths = "productType")
+    List<ProductTypeAttribute> findWithProductTypeByIdIn(Collection<Long> ids);
+}
@@ -1,10 +1,26 @@
 package com.carol.customshop.repository;
 
 import com.carol.customshop.entity.ProductType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ProductTypeRepository extends JpaRepository<ProductType, UUID> {}
\ No newline at end of file
+public interface ProductTypeRepository extends JpaRepository<ProductType, UUID> {
+
+    @EntityGraph(attributePaths = "notAllowedCombinations")
+    Optional<ProductType> findWithNotAllowedCombinationsById(UUID id);
+
+    @Query("SELECT t.version FROM ProductType t WHERE t.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE ProductType t SET t.version = t.version + 1 WHERE t.id = :id")
+    int incrementVersion(@Param("id") UUID id);
+}
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -62,14 +63,20 @@ public class CartService {
     ) {
         Set<Long> productAttributeIds = productService.getValidAttributeIdsForProduct(product.getId());
 
-        List<ProductTypeAttributeOption> validatedOptions = new ArrayList<>();
-
         for (AddCartItemRequestSelectedOptionsInner option : selectedOptions) {
             if (!productAttributeIds.contains(option.getAttributeId())) {
                 throw new IllegalArgumentException("Invalid attribute for this product: " + option.getAttributeId());
             }
-            ProductTypeAttributeOption productOption = productService.getOptionById(option.getOptionId());
-            validatedOptions.add(productOption);
+        }
+
+        // All the selected options in one lookup
+        Map<Long, ProductTypeAttributeOption> options = productService.getOptionsById(selectedOptions.stream()
+                .map(AddCartItemRequestSelectedOptionsInner::getOptionId)
+                .toList());
+
+        List<ProductTypeAttributeOption> validatedOptions = new ArrayList<>();
+        for (AddCartItemRequestSelectedOptionsInner option : selectedOptions) {
+            validatedOptions.add(options.get(option.getOptionId()));
         }
 
         return validatedOptions;
@@ -96,8 +103,11 @@ public class CartService {
         return response;
     }
 
+    @Transactional
     public CartResponse getCartItems() {
         List<CartItem> cartItems = getLast10CartItems();
+        // Load the selected options of every item in one query instead of one per item
+        cartRepository.findWithSelectedOptionsByIdIn(cartItems.stream().map(CartItem::getId).toList());
 
         // Convert entities to DTOs
         List<CartItemResponse> responseList = cartItems.stream()
@@ -0,0 +1,171 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.entity.CatalogChange;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.CatalogChangeNotificationRepository;
+import com.carol.customshop.repository.CatalogChangeRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Keeps the catalog data cached in memory coherent across nodes when {@code catalog.invalidation.enabled} is set.
+ * Requires PostgreSQL.
+ * <p>
+ * Every change is recorded in the {@code catalog_change} table and notified, in the transaction that makes it, with
+ * its version, scope, ID and the node it comes from. Each node listens on a dedicated connection and publishes the
+ * changes of the other nodes as remote {@link CatalogChangedEvent}s, so its caches drop what became stale. Versions
+ * are applied in order: after a gap, or when the connection comes back, the node reads the changes it missed from
+ * the table.
+ */
+@Slf4j
+@Service
+public class CatalogChangeChannel {
+
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final CatalogChangeNotificationRepository catalogChangeNotificationRepository;
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    private final String origin = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Thread listener;
+    // Only used by the listener thread; negative until the first connection
+    private long appliedVersion = -1;
+
+    public CatalogChangeChannel(
+            CatalogChangeRepository catalogChangeRepository,
+            CatalogChangeNotificationRepository catalogChangeNotificationRepository,
+            DataSource dataSource,
+            EntityManagerFactory entityManagerFactory,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${catalog.invalidation.enabled:false}") boolean enabled
+    ) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.catalogChangeNotificationRepository = catalogChangeNotificationRepository;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    // Called in the transaction of the change, with the catalog version it produced
+    public void send(long version, CatalogChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        CatalogChange change = catalogChangeRepository.save(
+                new CatalogChange(version, event.getScope(), event.getId(), origin));
+        catalogChangeNotificationRepository.notify(change.toPayload());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "catalog-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(RECONNECT_DELAY_MILLIS);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try {
+                    receive(connection);
+                } finally {
+                    // The connection goes back to the pool
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("UNLISTEN *");
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the catalog change channel, reconnecting in {} ms", RECONNECT_DELAY_MILLIS, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CatalogChangeNotificationRepository.CHANNEL);
+        }
+        // Listening first, so that nothing committed from here on is missed
+        if (appliedVersion < 0) {
+            // Caches start from the current state of the database
+            appliedVersion = catalogChangeRepository.findLatestVersion().orElse(0L);
+        } else {
+            catchUp();
+        }
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+            if (notifications == null) {
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                CatalogChange change = CatalogChange.fromPayload(notification.getParameter());
+                if (change.getVersion() == appliedVersion + 1) {
+                    apply(change);
+                } else if (change.getVersion() > appliedVersion) {
+                    catchUp();
+                }
+            }
+        }
+    }
+
+    private void catchUp() {
+        catalogChangeRepository.findByVersionGreaterThanOrderByVersion(appliedVersion).forEach(this::apply);
+    }
+
+    private void apply(CatalogChange change) {
+        appliedVersion = change.getVersion();
+        if (origin.equals(change.getOrigin())) {
+            return;
+        }
+        log.debug("Applying catalog change {} from another node", change.toPayload());
+        // The product type aggregate is the only catalog data in the second-level cache
+        if (change.getScope() == CatalogChangedEvent.Scope.PRODUCT_TYPE) {
+            entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        }
+        eventPublisher.publishEvent(CatalogChangedEvent.remote(change.getScope(), change.getEntityId()));
+    }
+}
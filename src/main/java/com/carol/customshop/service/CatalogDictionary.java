@@ -0,0 +1,169 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.entity.NotAllowedCombination;
+import com.carol.customshop.entity.ProductTypeAttribute;
+import com.carol.customshop.entity.ProductTypeAttributeOption;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.NotAllowedCombinationRepository;
+import com.carol.customshop.repository.ProductTypeAttributeOptionRepository;
+import com.carol.customshop.repository.ProductTypeAttributeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Read-through lookups of product type attributes, attribute options and not-allowed combinations by ID, for the
+ * write and cart paths that resolve many of them per request.
+ * <p>
+ * Each kind is kept in a bounded LRU map; IDs not held are loaded together in one query, along with the to-one
+ * associations up to the product type. Entries of a product type are evicted when it changes. The returned entities
+ * are detached and shared between callers: they may be referenced from new entities but must not be modified, and
+ * their collections are not loaded.
+ */
+@Slf4j
+@Component
+public class CatalogDictionary {
+
+    private final Section<ProductTypeAttribute> attributes;
+    private final Section<ProductTypeAttributeOption> options;
+    private final Section<NotAllowedCombination> combinations;
+
+    public CatalogDictionary(
+            ProductTypeAttributeRepository productTypeAttributeRepository,
+            ProductTypeAttributeOptionRepository productTypeAttributeOptionRepository,
+            NotAllowedCombinationRepository notAllowedCombinationRepository,
+            @Value("${catalog.dictionary.max-size:10000}") int maxSize
+    ) {
+        this.attributes = new Section<>(maxSize, productTypeAttributeRepository::findWithProductTypeByIdIn,
+                ProductTypeAttribute::getId, attribute -> attribute.getProductType().getId());
+        this.options = new Section<>(maxSize, productTypeAttributeOptionRepository::findWithAttributeByIdIn,
+                ProductTypeAttributeOption::getId, option -> option.getAttribute().getProductType().getId());
+        this.combinations = new Section<>(maxSize, notAllowedCombinationRepository::findWithProductTypeByIdIn,
+                NotAllowedCombination::getId, combination -> combination.getProductType().getId());
+    }
+
+    public Optional<ProductTypeAttribute> getAttribute(long attributeId) {
+        return Optional.ofNullable(attributes.getAll(List.of(attributeId)).get(attributeId));
+    }
+
+    /**
+     * The attributes with the given IDs, keyed by ID. IDs without an attribute are left out.
+     */
+    public Map<Long, ProductTypeAttribute> getAttributes(Collection<Long> attributeIds) {
+        return attributes.getAll(attributeIds);
+    }
+
+    public Optional<ProductTypeAttributeOption> getOption(long optionId) {
+        return Optional.ofNullable(options.getAll(List.of(optionId)).get(optionId));
+    }
+
+    public Map<Long, ProductTypeAttributeOption> getOptions(Collection<Long> optionIds) {
+        return options.getAll(optionIds);
+    }
+
+    public Optional<NotAllowedCombination> getCombination(long combinationId) {
+        return Optional.ofNullable(combinations.getAll(List.of(combinationId)).get(combinationId));
+    }
+
+    public Map<Long, NotAllowedCombination> getCombinations(Collection<Long> combinationIds) {
+        return combinations.getAll(combinationIds);
+    }
+
+    public int size() {
+        return attributes.size() + options.size() + combinations.size();
+    }
+
+    // Product changes only touch overrides, which are not held here
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT_TYPE) {
+            attributes.evictProductType(event.getId());
+            options.evictProductType(event.getId());
+            combinations.evictProductType(event.getId());
+            log.debug("Evicted catalog dictionary entries for {}", event);
+        }
+    }
+
+    private static final class Section<T> {
+
+        private final Function<Collection<Long>, List<T>> loader;
+        private final Function<T, Long> idOf;
+        private final Function<T, UUID> productTypeIdOf;
+        private final LinkedHashMap<Long, T> entries;
+        // Bumped on every eviction, so that entities loaded before a change are not stored after it
+        private long generation;
+
+        Section(
+                int maxSize,
+                Function<Collection<Long>, List<T>> loader,
+                Function<T, Long> idOf,
+                Function<T, UUID> productTypeIdOf
+        ) {
+            this.loader = loader;
+            this.idOf = idOf;
+            this.productTypeIdOf = productTypeIdOf;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        Map<Long, T> getAll(Collection<Long> ids) {
+            Map<Long, T> found = new HashMap<>();
+            Set<Long> missing = new LinkedHashSet<>();
+            long loadGeneration;
+            synchronized (entries) {
+                for (Long id : ids) {
+                    T entity = entries.get(id);
+                    if (entity != null) {
+                        found.put(id, entity);
+                    } else {
+                        missing.add(id);
+                    }
+                }
+                loadGeneration = generation;
+            }
+
+            if (!missing.isEmpty()) {
+                List<T> loaded = loader.apply(missing);
+                synchronized (entries) {
+                    for (T entity : loaded) {
+                        found.put(idOf.apply(entity), entity);
+                        if (generation == loadGeneration) {
+                            entries.put(idOf.apply(entity), entity);
+                        }
+                    }
+                }
+            }
+
+            // In the order asked for
+            Map<Long, T> result = new LinkedHashMap<>();
+            for (Long id : ids) {
+                T entity = found.get(id);
+                if (entity != null) {
+                    result.put(id, entity);
+                }
+            }
+            return result;
+        }
+
+        void evictProductType(UUID productTypeId) {
+            synchronized (entries) {
+                generation++;
+                entries.values().removeIf(entity -> productTypeId.equals(productTypeIdOf.apply(entity)));
+            }
+        }
+
+        int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+    }
+}
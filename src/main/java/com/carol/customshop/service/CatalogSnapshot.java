@@ -0,0 +1,139 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.dto.ProductListItemResponse;
+
+import java.util.*;
+
+/**
+ * Immutable in-memory copy of what the customer endpoints serve: the customer details and list item of every
+ * product, with the list kept in (name, ID) order. Changes produce a new snapshot sharing the untouched entries.
+ * <p>
+ * Responses are returned as fresh top-level copies, so callers may set their fields (image URLs, sections left
+ * out); the nested lists are shared and unmodifiable. Image fields hold file names, like the read model.
+ */
+public final class CatalogSnapshot {
+
+    // IDs compare as their text, which is how PostgreSQL orders UUIDs
+    private static final Comparator<ProductListItemResponse> LIST_ORDER = Comparator
+            .comparing(ProductListItemResponse::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(item -> item.getId().toString());
+
+    private final String listVersion;
+    private final Map<UUID, ProductEntry> products;
+    private final List<ProductListItemResponse> listItems;
+
+    private CatalogSnapshot(String listVersion, Map<UUID, ProductEntry> products) {
+        this.listVersion = listVersion;
+        this.products = Map.copyOf(products);
+        List<ProductListItemResponse> items = new ArrayList<>(products.size());
+        products.values().forEach(entry -> items.add(entry.listItem()));
+        items.sort(LIST_ORDER);
+        this.listItems = List.copyOf(items);
+    }
+
+    static CatalogSnapshot of(String listVersion, Map<UUID, ProductEntry> products) {
+        return new CatalogSnapshot(listVersion, products);
+    }
+
+    /**
+     * A snapshot with the given products replaced or added and the removed ones dropped.
+     */
+    CatalogSnapshot with(String listVersion, Map<UUID, ProductEntry> changed, Collection<UUID> removed) {
+        Map<UUID, ProductEntry> next = new HashMap<>(products);
+        next.keySet().removeAll(removed);
+        next.putAll(changed);
+        return new CatalogSnapshot(listVersion, next);
+    }
+
+    /**
+     * Changes whenever the snapshot does, and is never reused for different contents.
+     */
+    public String getListVersion() {
+        return listVersion;
+    }
+
+    // Empty when the product is not in the snapshot
+    public Optional<Long> getProductVersion(UUID productId) {
+        return Optional.ofNullable(products.get(productId)).map(ProductEntry::version);
+    }
+
+    public Optional<ProductDetailsCustomerResponse> findCustomerDetails(UUID productId) {
+        return Optional.ofNullable(products.get(productId)).map(entry -> copy(entry.details()));
+    }
+
+    public int size() {
+        return listItems.size();
+    }
+
+    public List<ProductListItemResponse> getListItems(int offset, int limit) {
+        return copy(listItems, offset, limit);
+    }
+
+    // The items after the cursor's (name, ID) position
+    public List<ProductListItemResponse> getListItemsAfter(ProductListCursor cursor, int limit) {
+        ProductListItemResponse position = new ProductListItemResponse();
+        position.setName(cursor.name());
+        position.setId(cursor.id());
+
+        int low = 0;
+        int high = listItems.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (LIST_ORDER.compare(listItems.get(middle), position) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return copy(listItems, low, limit);
+    }
+
+    private static List<ProductListItemResponse> copy(List<ProductListItemResponse> items, int offset, int limit) {
+        List<ProductListItemResponse> page = new ArrayList<>();
+        for (int i = offset; i < items.size() && page.size() < limit; i++) {
+            page.add(copy(items.get(i)));
+        }
+        return page;
+    }
+
+    private static ProductDetailsCustomerResponse copy(ProductDetailsCustomerResponse details) {
+        ProductDetailsCustomerResponse copy = new ProductDetailsCustomerResponse();
+        copy.setId(details.getId());
+        copy.setName(details.getName());
+        copy.setSku(details.getSku());
+        copy.setDescription(details.getDescription());
+        copy.setPrice(details.getPrice());
+        copy.setMainPicture(details.getMainPicture());
+        copy.setImageGallery(details.getImageGallery());
+        copy.setProductAttributes(details.getProductAttributes());
+        return copy;
+    }
+
+    private static ProductListItemResponse copy(ProductListItemResponse item) {
+        ProductListItemResponse copy = new ProductListItemResponse();
+        copy.setId(item.getId());
+        copy.setName(item.getName());
+        copy.setDescription(item.getDescription());
+        copy.setSku(item.getSku());
+        copy.setProductTypeName(item.getProductTypeName());
+        copy.setPrice(item.getPrice());
+        copy.setMainPicture(item.getMainPicture());
+        return copy;
+    }
+
+    /**
+     * One product of the snapshot, with the version its details were read at.
+     */
+    record ProductEntry(long version, ProductDetailsCustomerResponse details, ProductListItemResponse listItem) {
+
+        ProductEntry {
+            if (details.getImageGallery() != null) {
+                details.setImageGallery(List.copyOf(details.getImageGallery()));
+            }
+            if (details.getProductAttributes() != null) {
+                details.setProductAttributes(List.copyOf(details.getProductAttributes()));
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Keeps the {@link CatalogSnapshot} the customer endpoints are served from when
+ * {@code catalog.snapshot.enabled} is set.
+ * <p>
+ * The snapshot is loaded once the application is ready. After every committed catalog change, the products it
+ * affects are read again and a new snapshot is swapped in; writers take turns, readers just read the current
+ * snapshot and never wait. Until the first load, or after a rebuild failed, there is no snapshot and the endpoints
+ * use their database read paths; the next change then reloads the whole catalog.
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductAggregateLoader productAggregateLoader;
+    private final ProductReadModelService productReadModelService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private final Object writeLock = new Object();
+    private volatile CatalogSnapshot snapshot;
+    private volatile boolean ready;
+    // Identifies this process's snapshots, so that list versions are not reused after a restart
+    private final String lineage = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private long sequence;
+
+    public CatalogSnapshotService(
+            ProductRepository productRepository,
+            ProductAggregateLoader productAggregateLoader,
+            ProductReadModelService productReadModelService,
+            PlatformTransactionManager transactionManager,
+            @Value("${catalog.snapshot.enabled:false}") boolean enabled
+    ) {
+        this.productRepository = productRepository;
+        this.productAggregateLoader = productAggregateLoader;
+        this.productReadModelService = productReadModelService;
+        // Changes are applied after their transaction has committed, so reads run in a transaction of their own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    // Empty when the snapshot is disabled or not loaded
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        ready = true;
+        synchronized (writeLock) {
+            reload();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled || !ready) {
+            return;
+        }
+        synchronized (writeLock) {
+            CatalogSnapshot current = snapshot;
+            if (current == null) {
+                reload();
+                return;
+            }
+            try {
+                snapshot = transactionTemplate.execute(status -> {
+                    List<UUID> productIds = event.getScope() == CatalogChangedEvent.Scope.PRODUCT
+                            ? List.of(event.getId())
+                            : productRepository.findIdsByProductTypeId(event.getId());
+                    Map<UUID, CatalogSnapshot.ProductEntry> entries = read(productIds);
+                    // A product change may be its deletion
+                    Set<UUID> removed = new HashSet<>(productIds);
+                    removed.removeAll(entries.keySet());
+                    return current.with(nextListVersion(), entries, removed);
+                });
+            } catch (RuntimeException e) {
+                // Better the database than a snapshot missing a change
+                snapshot = null;
+                log.error("Could not apply {} to the catalog snapshot, serving from the database", event, e);
+            }
+        }
+    }
+
+    private void reload() {
+        try {
+            snapshot = transactionTemplate.execute(status ->
+                    CatalogSnapshot.of(nextListVersion(), read(productRepository.findAllIds())));
+            log.info("Loaded the catalog snapshot with {} products", snapshot.size());
+        } catch (RuntimeException e) {
+            snapshot = null;
+            log.error("Could not load the catalog snapshot, serving from the database", e);
+        }
+    }
+
+    private Map<UUID, CatalogSnapshot.ProductEntry> read(List<UUID> productIds) {
+        Map<UUID, CatalogSnapshot.ProductEntry> entries = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += LOAD_BATCH_SIZE) {
+            List<Product> products = productAggregateLoader.loadForCustomer(
+                    productIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, productIds.size())));
+            Map<UUID, ProductDetailsCustomerResponse> details = productReadModelService.buildCustomerDetails(products);
+            for (Product product : products) {
+                entries.put(product.getId(), new CatalogSnapshot.ProductEntry(product.getVersion(),
+                        details.get(product.getId()), productReadModelService.buildListItem(product)));
+            }
+        }
+        return entries;
+    }
+
+    private String nextListVersion() {
+        return lineage + "-" + ++sequence;
+    }
+}
@@ -0,0 +1,95 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.entity.CatalogVersion;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.CatalogVersionRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Tracks the catalog version: a counter bumped, in the same transaction, by every catalog change.
+ * Data derived from the catalog can be stamped with the version it was built from and trusted later only if the
+ * version has not moved since.
+ * <p>
+ * Products and product types also carry their own version, bumped by the changes that affect their details.
+ */
+@Slf4j
+@Service
+public class CatalogVersionService {
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ProductRepository productRepository;
+    private final ProductTypeRepository productTypeRepository;
+    private final CatalogChangeChannel catalogChangeChannel;
+
+    public CatalogVersionService(
+            CatalogVersionRepository catalogVersionRepository,
+            ProductRepository productRepository,
+            ProductTypeRepository productTypeRepository,
+            CatalogChangeChannel catalogChangeChannel
+    ) {
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.productRepository = productRepository;
+        this.productTypeRepository = productTypeRepository;
+        this.catalogChangeChannel = catalogChangeChannel;
+    }
+
+    // The counter row is created before any change is made, so that concurrent changes only ever update it
+    @PostConstruct
+    void createVersionRow() {
+        try {
+            catalogVersionRepository.insertIfAbsent();
+        } catch (DataIntegrityViolationException e) {
+            log.debug("The catalog version row was created by another node", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long getCurrentVersion() {
+        return catalogVersionRepository.findById(CatalogVersion.SINGLETON_ID)
+                .map(CatalogVersion::getVersion)
+                .orElse(0L);
+    }
+
+    // Empty when the product does not exist
+    @Transactional(readOnly = true)
+    public Optional<Long> getProductVersion(UUID productId) {
+        return productRepository.findVersionById(productId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> getProductTypeVersion(UUID productTypeId) {
+        return productTypeRepository.findVersionById(productTypeId);
+    }
+
+    // Runs in the publisher's transaction, so the versions move if and only if the change commits. The counter row
+    // stays locked until then, so changes commit in version order.
+    @EventListener
+    @Transactional
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        if (catalogVersionRepository.increment() == 0) {
+            // The row was deleted since startup
+            catalogVersionRepository.insertIfAbsent();
+            catalogVersionRepository.increment();
+        }
+        catalogChangeChannel.send(catalogVersionRepository.findVersion(), event);
+        if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT) {
+            productRepository.incrementVersion(event.getId());
+        } else {
+            productTypeRepository.incrementVersion(event.getId());
+            productRepository.incrementVersionByProductTypeId(event.getId());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.dto.*;
+import com.carol.customshop.service.constraint.ConfigurationState;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Server-side configurator sessions. Each session keeps a {@link ConfigurationState} for one product, so a
+ * selection or deselection only re-evaluates the not-allowed combinations containing the option that changed.
+ * Sessions live in a bounded, access-ordered map: the least recently used session is dropped when the map is
+ * full, and sessions idle for longer than the configured timeout are expired on access.
+ */
+@Slf4j
+@Service
+public class ConfigurationSessionService {
+
+    private final ProductConstraintIndexService productConstraintIndexService;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+
+    private final LinkedHashMap<UUID, ConfigurationSession> sessions;
+
+    public ConfigurationSessionService(
+            ProductConstraintIndexService productConstraintIndexService,
+            @Value("${configurator.sessions.max-size:10000}") int maxSessions,
+            @Value("${configurator.sessions.idle-timeout:30m}") Duration idleTimeout
+    ) {
+        this.productConstraintIndexService = productConstraintIndexService;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ConfigurationSession> eldest) {
+                return size() > ConfigurationSessionService.this.maxSessions;
+            }
+        };
+    }
+
+    public ConfigurationSessionResponse createSession(UUID productId) {
+        ProductConstraintIndex index = productConstraintIndexService.getIndex(productId);
+        ConfigurationSession session = new ConfigurationSession(UUID.randomUUID(), productId,
+                new ConfigurationState(index));
+
+        synchronized (sessions) {
+            expireIdleSessions();
+            sessions.put(session.id, session);
+        }
+
+        List<AvailableAttributeOptionsResponse> attributes = new ArrayList<>();
+        for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+            if (index.isAttributeActive(attribute)) {
+                List<AttributeOption> options = new ArrayList<>();
+                for (int ordinal : session.state.availableOptions(attribute)) {
+                    options.add(toAttributeOption(index, ordinal));
+                }
+                attributes.add(new AvailableAttributeOptionsResponse(
+                        index.attributeId(attribute), index.attributeName(attribute), options));
+            }
+        }
+
+        return new ConfigurationSessionResponse(session.id, productId, List.of(), attributes);
+    }
+
+    public ConfigurationDeltaResponse updateSelection(UUID sessionId, ConfigurationSelectionRequest request) {
+        ConfigurationSession session = getSession(sessionId);
+        boolean selected = request.isSelected() == null || request.isSelected();
+
+        synchronized (session) {
+            ConfigurationState state = session.state;
+            ProductConstraintIndex current = productConstraintIndexService.getIndex(session.productId);
+
+            List<AttributeAvailabilityChange> changes;
+            if (current == state.getIndex()) {
+                int[] changed = selected ? state.select(request.getOptionId()) : state.deselect(request.getOptionId());
+                changes = buildChanges(state, changed);
+            } else {
+                // The product or its type changed since the last call: replay the selection on the new rules
+                log.debug("Refreshing configuration session {} on updated rules of product {}",
+                        sessionId, session.productId);
+                ConfigurationState refreshed = ConfigurationState.replay(current, state.selectedOptionIds());
+                if (selected) {
+                    refreshed.select(request.getOptionId());
+                } else {
+                    refreshed.deselect(request.getOptionId());
+                }
+                changes = diff(state, refreshed);
+                session.state = refreshed;
+            }
+
+            return new ConfigurationDeltaResponse(sessionId, session.state.selectedOptionIds(), changes);
+        }
+    }
+
+    public void deleteSession(UUID sessionId) {
+        synchronized (sessions) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    private ConfigurationSession getSession(UUID sessionId) {
+        synchronized (sessions) {
+            expireIdleSessions();
+            ConfigurationSession session = sessions.get(sessionId);
+            if (session == null) {
+                throw new EntityNotFoundException("Configuration session not found or expired: " + sessionId);
+            }
+            session.lastAccess = System.nanoTime();
+            return session;
+        }
+    }
+
+    // Access order puts the idle sessions first, so expiry stops at the first session still in use
+    private void expireIdleSessions() {
+        long now = System.nanoTime();
+        Iterator<ConfigurationSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            ConfigurationSession session = iterator.next();
+            if (now - session.lastAccess < idleTimeoutNanos) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private List<AttributeAvailabilityChange> buildChanges(ConfigurationState state, int[] changedOrdinals) {
+        ProductConstraintIndex index = state.getIndex();
+        Map<Integer, AttributeAvailabilityChange> changes = new TreeMap<>();
+
+        for (int ordinal : changedOrdinals) {
+            AttributeAvailabilityChange change = changes.computeIfAbsent(
+                    index.attributeOf(ordinal), attribute -> newChange(index, attribute));
+            if (state.isAvailable(ordinal)) {
+                change.addNowAvailableItem(toAttributeOption(index, ordinal));
+            } else {
+                change.addNowUnavailableItem(toAttributeOption(index, ordinal));
+            }
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    private List<AttributeAvailabilityChange> diff(ConfigurationState before, ConfigurationState after) {
+        ProductConstraintIndex oldIndex = before.getIndex();
+        ProductConstraintIndex newIndex = after.getIndex();
+        List<AttributeAvailabilityChange> changes = new ArrayList<>();
+
+        for (int attribute = 0; attribute < newIndex.attributeCount(); attribute++) {
+            Map<Long, Integer> previouslyAvailable = new LinkedHashMap<>();
+            int oldAttribute = oldIndex.attributeIndexOf(newIndex.attributeId(attribute));
+            if (oldAttribute >= 0) {
+                for (int ordinal : before.availableOptions(oldAttribute)) {
+                    previouslyAvailable.put(oldIndex.optionId(ordinal), ordinal);
+                }
+            }
+
+            AttributeAvailabilityChange change = newChange(newIndex, attribute);
+            for (int ordinal : after.availableOptions(attribute)) {
+                if (previouslyAvailable.remove(newIndex.optionId(ordinal)) == null) {
+                    change.addNowAvailableItem(toAttributeOption(newIndex, ordinal));
+                }
+            }
+            for (int ordinal : previouslyAvailable.values()) {
+                change.addNowUnavailableItem(toAttributeOption(oldIndex, ordinal));
+            }
+
+            if (!change.getNowAvailable().isEmpty() || !change.getNowUnavailable().isEmpty()) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    private AttributeAvailabilityChange newChange(ProductConstraintIndex index, int attribute) {
+        return new AttributeAvailabilityChange(
+                index.attributeId(attribute), index.attributeName(attribute), new ArrayList<>(), new ArrayList<>());
+    }
+
+    private AttributeOption toAttributeOption(ProductConstraintIndex index, int ordinal) {
+        AttributeOption option = new AttributeOption();
+        option.setId(index.optionId(ordinal));
+        option.setName(index.optionName(ordinal));
+        return option;
+    }
+
+    private static final class ConfigurationSession {
+        private final UUID id;
+        private final UUID productId;
+        private ConfigurationState state;
+        private long lastAccess = System.nanoTime();
+
+        private ConfigurationSession(UUID id, UUID productId, ConfigurationState state) {
+            this.id = id;
+            this.productId = productId;
+            this.state = state;
+        }
+    }
+}
@@ -4,16 +4,14 @@ import com.carol.customshop.dto.*;
 import com.carol.customshop.entity.*;
 import com.carol.customshop.entity.NotAllowedCombination;
 import com.carol.customshop.repository.NotAllowedCombinationRepository;
-import com.carol.customshop.repository.ProductTypeAttributeOptionRepository;
-import com.carol.customshop.repository.ProductTypeAttributeRepository;
 import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer;
 import com.carol.customshop.service.interfaces.IProductTypeService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service("fully_customizableProductTypeService")
@@ -23,21 +21,17 @@ public class CustomizableProductTypeService implements IProductTypeService {
 
     private final NotAllowedCombinationRepository notAllowedCombinationRepository;
 
-    private final ProductTypeAttributeRepository productTypeAttributeRepository;
-
-    private final ProductTypeAttributeOptionRepository productTypeAttributeOptionRepository;
+    private final CatalogDictionary catalogDictionary;
 
     // Use constructor injection
     public CustomizableProductTypeService(
             ProductTypeRepository productTypeRepository,
             NotAllowedCombinationRepository notAllowedCombinationRepository,
-            ProductTypeAttributeRepository productTypeAttributeRepository,
-            ProductTypeAttributeOptionRepository productTypeAttributeOptionRepository
+            CatalogDictionary catalogDictionary
     ) {
         this.productTypeRepository = productTypeRepository;
         this.notAllowedCombinationRepository = notAllowedCombinationRepository;
-        this.productTypeAttributeRepository = productTypeAttributeRepository;
-        this.productTypeAttributeOptionRepository = productTypeAttributeOptionRepository;
+        this.catalogDictionary = catalogDictionary;
     }
     @Override
     public boolean addAttributesToProductType(String productTypeID, List<AttributeRequest> attributes) {
@@ -75,7 +69,7 @@ public class CustomizableProductTypeService implements IProductTypeService {
 
     @Override
     @Transactional
-    public void addNotAllowedCombinations(
+    public NotAllowedCombinationNormalizer.Result<Long> addNotAllowedCombinations(
             String productTypeId, List<List<NotAllowedCombinationItem>> notAllowedCombinations) {
 
         ProductType productType = productTypeRepository.findById(UUID.fromString(productTypeId))
@@ -94,7 +88,35 @@ public class CustomizableProductTypeService implements IProductTypeService {
             }
         }
 
-        List<NotAllowedCombination> combinations = notAllowedCombinations.stream()
+        // Leave out duplicates and supersets of combinations already forbidden
+        Map<Long, Set<Long>> existing = new LinkedHashMap<>();
+        for (NotAllowedCombination combination : productType.getNotAllowedCombinations()) {
+            existing.put(combination.getId(), combination.getOptions().stream()
+                    .map(element -> element.getAttributeOption().getId())
+                    .collect(Collectors.toSet()));
+        }
+        NotAllowedCombinationNormalizer.Result<Long> normalization = NotAllowedCombinationNormalizer.normalize(
+                existing,
+                notAllowedCombinations.stream()
+                        .map(combination -> combination.stream()
+                                .map(NotAllowedCombinationItem::getAttributeOptionId)
+                                .collect(Collectors.<Long>toSet()))
+                        .toList()
+        );
+
+        List<List<NotAllowedCombinationItem>> kept = normalization.kept().stream()
+                .map(notAllowedCombinations::get)
+                .toList();
+        Map<Long, ProductTypeAttribute> attributes = catalogDictionary.getAttributes(kept.stream()
+                .flatMap(List::stream)
+                .map(NotAllowedCombinationItem::getAttributeId)
+                .toList());
+        Map<Long, ProductTypeAttributeOption> attributeOptions = catalogDictionary.getOptions(kept.stream()
+                .flatMap(List::stream)
+                .map(NotAllowedCombinationItem::getAttributeOptionId)
+                .toList());
+
+        List<NotAllowedCombination> combinations = kept.stream()
                 .map(combination -> {
 
                     NotAllowedCombination parentCombination = new NotAllowedCombination();
@@ -104,7 +126,7 @@ public class CustomizableProductTypeService implements IProductTypeService {
                             .map(option -> {
                                 // Fetch and validate attribute
                                 ProductTypeAttribute attribute =
-                                        productTypeAttributeRepository.findById(option.getAttributeId())
+                                        Optional.ofNullable(attributes.get(option.getAttributeId()))
                                         .orElseThrow(() -> new IllegalArgumentException(
                                                 "Attribute not found with ID: " + option.getAttributeId()));
 
@@ -117,7 +139,7 @@ public class CustomizableProductTypeService implements IProductTypeService {
 
                                 // Fetch and validate attribute option
                                 ProductTypeAttributeOption attributeOption =
-                                        productTypeAttributeOptionRepository.findById(option.getAttributeOptionId())
+                                        Optional.ofNullable(attributeOptions.get(option.getAttributeOptionId()))
                                         .orElseThrow(() -> new IllegalArgumentException(
                                                 "Attribute option not found with ID " + option.getAttributeOptionId()));
 
@@ -149,6 +171,8 @@ public class CustomizableProductTypeService implements IProductTypeService {
 
         productType.getNotAllowedCombinations().addAll(combinations);
         productTypeRepository.save(productType);
+
+        return normalization;
     }
 
     @Override
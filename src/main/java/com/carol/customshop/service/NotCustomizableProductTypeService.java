@@ -3,6 +3,7 @@ package com.carol.customshop.service;
 import com.carol.customshop.dto.AttributeRequest;
 import com.carol.customshop.dto.NotAllowedCombinationItem;
 import com.carol.customshop.dto.ProductTypeDetailsResponse;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer;
 import com.carol.customshop.service.interfaces.IProductTypeService;
 import org.springframework.stereotype.Service;
 
@@ -19,7 +20,7 @@ public class NotCustomizableProductTypeService implements IProductTypeService {
     }
 
     @Override
-    public void addNotAllowedCombinations(
+    public NotAllowedCombinationNormalizer.Result<Long> addNotAllowedCombinations(
             String productTypeId,
             List<List<NotAllowedCombinationItem>> notAllowedCombinations
     ) {
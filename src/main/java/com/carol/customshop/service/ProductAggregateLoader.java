@@ -0,0 +1,137 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.repository.NotAllowedCombinationRepository;
+import com.carol.customshop.repository.ProductNotAllowedCombinationRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeAttributeRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Fetch plans for the product read endpoints.
+ * <p>
+ * Each plan runs a fixed sequence of entity-graph queries, one per collection level of the aggregate, so the number
+ * of queries does not depend on how many attributes, options or combinations the product has. The results of the
+ * follow-up queries are not used directly: they initialize the collections of the entities already in the
+ * persistence context, so callers must run inside a transaction.
+ */
+@Service
+public class ProductAggregateLoader {
+
+    private final ProductRepository productRepository;
+    private final ProductTypeRepository productTypeRepository;
+    private final ProductTypeAttributeRepository productTypeAttributeRepository;
+    private final NotAllowedCombinationRepository notAllowedCombinationRepository;
+    private final ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository;
+
+    public ProductAggregateLoader(
+            ProductRepository productRepository,
+            ProductTypeRepository productTypeRepository,
+            ProductTypeAttributeRepository productTypeAttributeRepository,
+            NotAllowedCombinationRepository notAllowedCombinationRepository,
+            ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository
+    ) {
+        this.productRepository = productRepository;
+        this.productTypeRepository = productTypeRepository;
+        this.productTypeAttributeRepository = productTypeAttributeRepository;
+        this.notAllowedCombinationRepository = notAllowedCombinationRepository;
+        this.productNotAllowedCombinationRepository = productNotAllowedCombinationRepository;
+    }
+
+    /**
+     * Product, product type, attributes and their options (cart validation).
+     */
+    public Product loadWithAttributes(UUID productId) {
+        Product product = productRepository.findWithTypeAttributesById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        productTypeAttributeRepository.findWithOptionsByProductType(product.getProductType());
+        return product;
+    }
+
+    /**
+     * Everything the customer product page shows: attributes, options and the image gallery.
+     */
+    public Product loadForCustomer(UUID productId) {
+        return loadForCustomer(productId, ProductSection.CUSTOMER_DETAILS);
+    }
+
+    /**
+     * The product and type, plus attributes with their options and the image gallery when those sections are
+     * requested.
+     */
+    public Product loadForCustomer(UUID productId, Set<ProductSection> sections) {
+        Product product = sections.contains(ProductSection.ATTRIBUTES)
+                ? loadWithAttributes(productId)
+                : productRepository.findWithTypeById(productId)
+                        .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        if (sections.contains(ProductSection.IMAGE_GALLERY)) {
+            productRepository.findWithImageGalleryById(productId);
+        }
+        return product;
+    }
+
+    /**
+     * {@link #loadForCustomer(UUID)} for several products with the same three queries, whatever their number. IDs
+     * without a product are left out.
+     */
+    public List<Product> loadForCustomer(Collection<UUID> productIds) {
+        List<Product> products = productRepository.findWithTypeAttributesByIdIn(productIds);
+        if (!products.isEmpty()) {
+            productTypeAttributeRepository.findWithOptionsByProductTypeIn(products.stream()
+                    .map(Product::getProductType)
+                    .collect(Collectors.toSet()));
+            productRepository.findWithImageGalleryByIdIn(productIds);
+        }
+        return products;
+    }
+
+    /**
+     * The whole aggregate for the admin product page: additionally the type's not-allowed combinations, the
+     * product's overrides and its own not-allowed combinations.
+     */
+    public Product loadForAdmin(UUID productId) {
+        return loadForAdmin(productId, ProductSection.ADMIN_DETAILS);
+    }
+
+    /**
+     * The parts of the admin aggregate behind the requested sections. Combination elements reference attributes
+     * and options eagerly, so combinations bring the attributes along to resolve them from the persistence context.
+     */
+    public Product loadForAdmin(UUID productId, Set<ProductSection> sections) {
+        boolean typeCombinations = sections.contains(ProductSection.TYPE_COMBINATIONS);
+        boolean productCombinations = sections.contains(ProductSection.PRODUCT_COMBINATIONS);
+        boolean attributes = sections.contains(ProductSection.ATTRIBUTES);
+
+        Set<ProductSection> customerSections = EnumSet.noneOf(ProductSection.class);
+        if (attributes || typeCombinations || productCombinations) {
+            customerSections.add(ProductSection.ATTRIBUTES);
+        }
+        if (sections.contains(ProductSection.IMAGE_GALLERY)) {
+            customerSections.add(ProductSection.IMAGE_GALLERY);
+        }
+        Product product = loadForCustomer(productId, customerSections);
+
+        if (typeCombinations) {
+            productTypeRepository.findWithNotAllowedCombinationsById(product.getProductType().getId());
+            notAllowedCombinationRepository.findWithOptionsByProductType(product.getProductType());
+            productRepository.findWithNotAllowedCombinationsOverridesById(productId);
+        }
+        if (attributes) {
+            productRepository.findWithAttributeOverridesById(productId);
+            productRepository.findWithOptionOverridesById(productId);
+        }
+        if (productCombinations) {
+            productRepository.findWithNotAllowedCombinationsById(productId);
+            productNotAllowedCombinationRepository.findWithOptionsByProduct(product);
+        }
+        return product;
+    }
+}
@@ -0,0 +1,84 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductCountEstimateRepository;
+import com.carol.customshop.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Total number of products for the product lists, obtained according to a {@link ProductCountStrategy}.
+ */
+@Slf4j
+@Service
+public class ProductCountService {
+
+    private static final long UNKNOWN = -1;
+
+    private final ProductRepository productRepository;
+    private final ProductCountEstimateRepository productCountEstimateRepository;
+
+    private final AtomicLong cachedCount = new AtomicLong(UNKNOWN);
+    // Bumped on every invalidation, so that a count started before a change is not cached after it
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean estimateSupported = true;
+
+    public ProductCountService(
+            ProductRepository productRepository,
+            ProductCountEstimateRepository productCountEstimateRepository
+    ) {
+        this.productRepository = productRepository;
+        this.productCountEstimateRepository = productCountEstimateRepository;
+    }
+
+    public OptionalLong count(ProductCountStrategy strategy) {
+        return switch (strategy) {
+            case EXACT -> OptionalLong.of(productRepository.count());
+            case CACHED -> OptionalLong.of(cachedCount());
+            case ESTIMATED -> OptionalLong.of(estimatedCount());
+            case NONE -> OptionalLong.empty();
+        };
+    }
+
+    private long cachedCount() {
+        long count = cachedCount.get();
+        if (count != UNKNOWN) {
+            return count;
+        }
+        long countGeneration = generation.get();
+        count = productRepository.count();
+        if (generation.get() == countGeneration) {
+            cachedCount.compareAndSet(UNKNOWN, count);
+        }
+        return count;
+    }
+
+    private long estimatedCount() {
+        if (estimateSupported) {
+            try {
+                return productCountEstimateRepository.estimateProductCount()
+                        .orElseGet(productRepository::count);
+            } catch (DataAccessException e) {
+                // Not PostgreSQL: fall back to exact counts from now on
+                estimateSupported = false;
+                log.warn("Product count estimates are not available, counting products instead: {}",
+                        e.getMessage());
+            }
+        }
+        return productRepository.count();
+    }
+
+    // Products are created and deleted with a PRODUCT change; product type changes do not affect the count
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT) {
+            generation.incrementAndGet();
+            cachedCount.set(UNKNOWN);
+        }
+    }
+}
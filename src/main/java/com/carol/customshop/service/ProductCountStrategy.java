@@ -0,0 +1,20 @@
+package com.carol.customshop.service;
+
+/**
+ * How a product list obtains its total count. Configured per endpoint in lowercase, e.g.
+ * {@code product.list.count-strategy.customer=estimated}.
+ */
+public enum ProductCountStrategy {
+
+    // count(*) on every request
+    EXACT,
+
+    // count(*) once, kept until a product is created or deleted
+    CACHED,
+
+    // PostgreSQL's planner estimate of the table size, exact count elsewhere
+    ESTIMATED,
+
+    // No total: the page only tells whether there is a next one
+    NONE
+}
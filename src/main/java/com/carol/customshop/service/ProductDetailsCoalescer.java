@@ -0,0 +1,56 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Coalesces concurrent requests for the customer details of the same product with the same sections, so that a
+ * burst of them runs the read once. It sits in front of {@link ProductService}, so waiting requests hold no
+ * transaction or connection.
+ * <p>
+ * Requests only share a read when they are for the same product version, so that a request made after a change
+ * never gets the details read before it, and come through the same base URL, which the image URLs are built from.
+ */
+@Component
+public class ProductDetailsCoalescer {
+
+    private final ProductService productService;
+    private final RequestCoalescer<Key, ProductDetailsCustomerResponse> customerDetails;
+    private final RequestCoalescer<Key, String> customerDetailsJson;
+
+    public ProductDetailsCoalescer(ProductService productService, MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.customerDetails = new RequestCoalescer<>("customerProductDetails", meterRegistry);
+        this.customerDetailsJson = new RequestCoalescer<>("customerProductDetailsJson", meterRegistry);
+    }
+
+    /**
+     * The response may be shared between callers and must not be modified.
+     *
+     * @param version the product version the caller has read, null if the product was not found
+     */
+    public ProductDetailsCustomerResponse getProductDetailsForCustomer(
+            UUID productId, Long version, Set<ProductSection> sections
+    ) {
+        return customerDetails.get(new Key(productId, version, Set.copyOf(sections), baseUrl()),
+                () -> productService.getProductDetailsForCustomer(productId, sections));
+    }
+
+    // The complete details as rendered by the database, see ProductService.rendersProductDetailsJsonForCustomer
+    public String getProductDetailsJsonForCustomer(UUID productId, Long version) {
+        return customerDetailsJson.get(new Key(productId, version, ProductSection.CUSTOMER_DETAILS, baseUrl()),
+                () -> productService.getProductDetailsJsonForCustomer(productId));
+    }
+
+    private static String baseUrl() {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+    }
+
+    private record Key(UUID productId, Long version, Set<ProductSection> sections, String baseUrl) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.carol.customshop.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the product list, which is ordered by name and then ID. Clients see it as an opaque URL-safe string.
+ */
+public record ProductListCursor(String name, UUID id) {
+
+    private static final int ID_LENGTH = 36;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductListCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new ProductListCursor(value.substring(ID_LENGTH), UUID.fromString(value.substring(0, ID_LENGTH)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid product list cursor: " + cursor);
+        }
+    }
+}
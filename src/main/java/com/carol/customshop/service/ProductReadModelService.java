@@ -0,0 +1,292 @@
+package com.carol.customshop.service;
+
+import com.carol.customshop.dto.AttributeOptionCustomer;
+import com.carol.customshop.dto.AttributeResponseCustomer;
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.dto.ProductListItemResponse;
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.entity.ProductReadModel;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductAttributeOverrideRepository;
+import com.carol.customshop.repository.ProductOptionOverrideRepository;
+import com.carol.customshop.repository.ProductReadModelRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the {@link ProductReadModel} table: the customer product details and list item of every product,
+ * precomputed so that customer reads are single-row lookups.
+ * <p>
+ * Rows are rebuilt in the transaction of the change that makes them stale, so readers never see a read model that
+ * disagrees with committed catalog data. Image fields hold file names; callers add the base URL.
+ */
+@Slf4j
+@Service
+public class ProductReadModelService {
+
+    private final ProductReadModelRepository productReadModelRepository;
+    private final ProductRepository productRepository;
+    private final ProductAttributeOverrideRepository productAttributeOverrideRepository;
+    private final ProductOptionOverrideRepository productOptionOverrideRepository;
+    private final ProductAggregateLoader productAggregateLoader;
+    private final ObjectMapper objectMapper;
+
+    public ProductReadModelService(
+            ProductReadModelRepository productReadModelRepository,
+            ProductRepository productRepository,
+            ProductAttributeOverrideRepository productAttributeOverrideRepository,
+            ProductOptionOverrideRepository productOptionOverrideRepository,
+            ProductAggregateLoader productAggregateLoader,
+            ObjectMapper objectMapper
+    ) {
+        this.productReadModelRepository = productReadModelRepository;
+        this.productRepository = productRepository;
+        this.productAttributeOverrideRepository = productAttributeOverrideRepository;
+        this.productOptionOverrideRepository = productOptionOverrideRepository;
+        this.productAggregateLoader = productAggregateLoader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductDetailsCustomerResponse> findCustomerDetails(UUID productId) {
+        return productReadModelRepository.findById(productId)
+                .map(readModel -> fromJson(readModel.getCustomerDetails(), ProductDetailsCustomerResponse.class));
+    }
+
+    // Customer details of the products that have a readable read model row, in one query
+    @Transactional(readOnly = true)
+    public Map<UUID, ProductDetailsCustomerResponse> findCustomerDetails(Collection<UUID> productIds) {
+        Map<UUID, ProductDetailsCustomerResponse> details = new HashMap<>();
+        for (ProductReadModel readModel : productReadModelRepository.findAllById(productIds)) {
+            try {
+                details.put(readModel.getProductId(),
+                        fromJson(readModel.getCustomerDetails(), ProductDetailsCustomerResponse.class));
+            } catch (IllegalStateException e) {
+                // Left to the caller's fallback rather than failing the other products
+                log.warn("Skipping the read model of product {}: {}", readModel.getProductId(), e.getMessage());
+            }
+        }
+        return details;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductListItemResponse> findListItems(Pageable pageable) {
+        return productReadModelRepository.findAll(pageable)
+                .map(readModel -> fromJson(readModel.getListItem(), ProductListItemResponse.class));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProductListItemResponse> findListItemSlice(Pageable pageable) {
+        return productReadModelRepository.findSliceBy(pageable)
+                .map(readModel -> fromJson(readModel.getListItem(), ProductListItemResponse.class));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductListItemResponse> findListItemsAfter(ProductListCursor cursor, Pageable pageable) {
+        return productReadModelRepository.findPageAfter(cursor.name(), cursor.id(), pageable).stream()
+                .map(readModel -> fromJson(readModel.getListItem(), ProductListItemResponse.class))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Customer details of a product loaded with {@link ProductAggregateLoader#loadForCustomer}: attributes
+     * deactivated for the product are left out, as are deactivated and out-of-stock options.
+     * <p>
+     * Overrides are queried rather than read from the product's collections, which the override handlers do not
+     * update while the product is being written.
+     */
+    public ProductDetailsCustomerResponse buildCustomerDetails(Product product) {
+        return buildCustomerDetails(product, ProductSection.CUSTOMER_DETAILS);
+    }
+
+    // Sections left out are null, and their overrides are not queried
+    public ProductDetailsCustomerResponse buildCustomerDetails(Product product, Set<ProductSection> sections) {
+        return buildCustomerDetails(List.of(product), sections).get(product.getId());
+    }
+
+    /**
+     * {@link #buildCustomerDetails(Product)} for several products, with the overrides of all of them queried at once.
+     */
+    public Map<UUID, ProductDetailsCustomerResponse> buildCustomerDetails(Collection<Product> products) {
+        return buildCustomerDetails(products, ProductSection.CUSTOMER_DETAILS);
+    }
+
+    private Map<UUID, ProductDetailsCustomerResponse> buildCustomerDetails(
+            Collection<Product> products, Set<ProductSection> sections
+    ) {
+        Map<UUID, Set<Long>> deactivatedAttributes = new HashMap<>();
+        Map<UUID, Set<Long>> unavailableOptions = new HashMap<>();
+        if (sections.contains(ProductSection.ATTRIBUTES)) {
+            productAttributeOverrideRepository.findByProductInAndActiveFalse(products)
+                    .forEach(override -> deactivatedAttributes
+                            .computeIfAbsent(override.getProduct().getId(), id -> new HashSet<>())
+                            .add(override.getAttribute().getId()));
+            Stream.concat(
+                    productOptionOverrideRepository.findByProductInAndActiveFalse(products).stream(),
+                    productOptionOverrideRepository.findByProductInAndOutOfStockTrue(products).stream()
+            ).forEach(override -> unavailableOptions
+                    .computeIfAbsent(override.getProduct().getId(), id -> new HashSet<>())
+                    .add(override.getOption().getId()));
+        }
+
+        Map<UUID, ProductDetailsCustomerResponse> responses = new LinkedHashMap<>();
+        for (Product product : products) {
+            responses.put(product.getId(), buildCustomerDetails(product, sections,
+                    deactivatedAttributes.getOrDefault(product.getId(), Set.of()),
+                    unavailableOptions.getOrDefault(product.getId(), Set.of())));
+        }
+        return responses;
+    }
+
+    private ProductDetailsCustomerResponse buildCustomerDetails(
+            Product product, Set<ProductSection> sections, Set<Long> deactivatedAttributes, Set<Long> unavailableOptions
+    ) {
+        ProductDetailsCustomerResponse response = new ProductDetailsCustomerResponse();
+        response.setId(product.getId());
+        response.setName(product.getName());
+        response.setSku(product.getSku());
+        if (sections.contains(ProductSection.DESCRIPTION)) {
+            response.setDescription(product.getDescription());
+        }
+        response.setPrice(product.getPrice());
+        response.setMainPicture(product.getMainPicture());
+        if (!sections.contains(ProductSection.IMAGE_GALLERY)) {
+            response.setImageGallery(null);
+        } else if (product.getImageGallery() != null) {
+            response.setImageGallery(new ArrayList<>(product.getImageGallery()));
+        }
+        if (!sections.contains(ProductSection.ATTRIBUTES)) {
+            response.setProductAttributes(null);
+            return response;
+        }
+
+        List<AttributeResponseCustomer> attributes = product.getProductType().getAttributes().stream()
+                .filter(attribute -> !deactivatedAttributes.contains(attribute.getId()))
+                .map(attribute -> {
+                    List<AttributeOptionCustomer> options = attribute.getOptions().stream()
+                            .filter(option -> !unavailableOptions.contains(option.getId()))
+                            .map(option -> {
+                                AttributeOptionCustomer optionResponse = new AttributeOptionCustomer();
+                                optionResponse.setId(option.getId());
+                                optionResponse.setName(option.getName());
+                                return optionResponse;
+                            })
+                            .collect(Collectors.toList());
+                    AttributeResponseCustomer attributeResponse = new AttributeResponseCustomer();
+                    attributeResponse.setId(attribute.getId());
+                    attributeResponse.setName(attribute.getAttributeName());
+                    attributeResponse.setOptions(options);
+                    return attributeResponse;
+                })
+                .collect(Collectors.toList());
+        response.setProductAttributes(attributes);
+        return response;
+    }
+
+    public ProductListItemResponse buildListItem(Product product) {
+        ProductListItemResponse response = new ProductListItemResponse();
+        response.setId(product.getId());
+        response.setName(product.getName());
+        response.setDescription(product.getDescription());
+        response.setSku(product.getSku());
+        response.setProductTypeName(product.getProductType().getName());
+        response.setPrice(product.getPrice());
+        response.setMainPicture(product.getMainPicture());
+        return response;
+    }
+
+    // Runs in the publisher's transaction, so the read model commits or rolls back with the change
+    @EventListener
+    @Transactional
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // The node that made a remote change has rebuilt it
+        if (event.isRemote()) {
+            return;
+        }
+        if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT) {
+            rebuild(List.of(event.getId()));
+        } else {
+            rebuild(productRepository.findIdsByProductTypeId(event.getId()));
+        }
+    }
+
+    // Products written before the read model existed, or outside the services, get their row at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildMissing() {
+        List<UUID> productIds = productReadModelRepository.findProductIdsWithoutReadModel();
+        rebuild(productIds);
+        if (!productIds.isEmpty()) {
+            log.info("Built the read model of {} products", productIds.size());
+        }
+    }
+
+    // Set-based, so a product type change does not cost a round of queries per product while the change's
+    // transaction holds the catalog version row
+    private void rebuild(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Product> products = productAggregateLoader.loadForCustomer(productIds);
+        Map<UUID, ProductDetailsCustomerResponse> customerDetails = buildCustomerDetails(products);
+        Map<UUID, ProductReadModel> readModels = productReadModelRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductReadModel::getProductId, readModel -> readModel));
+
+        LocalDateTime refreshedAt = LocalDateTime.now();
+        List<ProductReadModel> rebuilt = new ArrayList<>();
+        for (Product product : products) {
+            ProductReadModel readModel = readModels.remove(product.getId());
+            if (readModel == null) {
+                readModel = new ProductReadModel();
+                readModel.setProductId(product.getId());
+            }
+            readModel.setName(product.getName());
+            readModel.setCustomerDetails(toJson(customerDetails.get(product.getId())));
+            readModel.setListItem(toJson(buildListItem(product)));
+            readModel.setRefreshedAt(refreshedAt);
+            rebuilt.add(readModel);
+        }
+        productReadModelRepository.saveAll(rebuilt);
+        // Rows left are those of deleted products
+        productReadModelRepository.deleteAll(readModels.values());
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the product read model", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt product read model", e);
+        }
+    }
+}
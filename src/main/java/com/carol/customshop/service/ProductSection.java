@@ -0,0 +1,62 @@
+package com.carol.customshop.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Optional parts of the product responses that clients can select with {@code fields=}. Leaving a section out skips
+ * the queries that load it, not only its serialization; identity, name, SKU, price and main picture are always
+ * returned.
+ */
+public enum ProductSection {
+
+    DESCRIPTION("description"),
+    IMAGE_GALLERY("imageGallery"),
+    ATTRIBUTES("productAttributes"),
+    TYPE_COMBINATIONS("productNotAllowedCombinations"),
+    PRODUCT_COMBINATIONS("specificNotAllowedCombinations");
+
+    public static final Set<ProductSection> LIST_ITEM = Collections.unmodifiableSet(EnumSet.of(DESCRIPTION));
+    public static final Set<ProductSection> CUSTOMER_DETAILS =
+            Collections.unmodifiableSet(EnumSet.of(DESCRIPTION, IMAGE_GALLERY, ATTRIBUTES));
+    public static final Set<ProductSection> ADMIN_DETAILS =
+            Collections.unmodifiableSet(EnumSet.allOf(ProductSection.class));
+
+    // Always returned, accepted in fields= so that clients can ask for nothing else
+    private static final Set<String> CORE_FIELDS =
+            Set.of("id", "name", "sku", "price", "mainPicture", "productType", "productTypeName");
+
+    private final String fieldName;
+
+    ProductSection(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Sections named in a comma-separated {@code fields} value, out of those the endpoint offers. No value selects
+     * all of them.
+     */
+    public static Set<ProductSection> parse(String fields, Set<ProductSection> available) {
+        if (fields == null || fields.isBlank()) {
+            return available;
+        }
+        Set<ProductSection> sections = EnumSet.noneOf(ProductSection.class);
+        for (String field : fields.split(",")) {
+            String fieldName = field.trim();
+            if (fieldName.isEmpty() || CORE_FIELDS.contains(fieldName)) {
+                continue;
+            }
+            sections.add(available.stream()
+                    .filter(section -> section.fieldName.equals(fieldName))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown field '" + fieldName
+                            + "', expected one of " + available.stream()
+                            .map(section -> section.fieldName)
+                            .collect(Collectors.joining(", ")))));
+        }
+        return sections;
+    }
+}
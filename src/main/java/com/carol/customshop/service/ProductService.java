@@ -2,11 +2,19 @@ package com.carol.customshop.service;
 
 import com.carol.customshop.dto.*;
 import com.carol.customshop.entity.*;
+import com.carol.customshop.event.CatalogChangedEvent;
 import com.carol.customshop.repository.*;
+import com.carol.customshop.service.constraint.AvailableOptionsCache;
+import com.carol.customshop.service.constraint.ConfigurationSpaceService;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -28,10 +37,36 @@ public class ProductService {
     private final ProductOptionOverrideRepository productOptionOverrideRepository;
     private final ProductTypeService productTypeService;
     private final FileStorageServiceImpl fileStorageService;
+    private final ProductConstraintIndexService productConstraintIndexService;
+    private final AvailableOptionsCache availableOptionsCache;
+    private final ConfigurationSpaceService configurationSpaceService;
+    private final ProductAggregateLoader productAggregateLoader;
+    private final CustomerProductDetailsJsonRepository customerProductDetailsJsonRepository;
+    private final ProductReadModelService productReadModelService;
+    private final ProductCountService productCountService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${product.images.base-path}")
     private String baseImagePath;
 
+    // "read-model" reads the precomputed view, "jpa" maps entities to the response, "sql-json" has PostgreSQL
+    // render the response document
+    @Value("${product.details.customer.read-path:read-model}")
+    private String customerDetailsReadPath;
+
+    // "read-model" or "jpa"
+    @Value("${product.list.read-path:read-model}")
+    private String productListReadPath;
+
+    @Value("${product.details.batch.max-size:50}")
+    private int detailsBatchMaxSize;
+
+    @Value("${product.list.count-strategy.customer:exact}")
+    private ProductCountStrategy customerListCountStrategy;
+
+    @Value("${product.list.count-strategy.admin:exact}")
+    private ProductCountStrategy adminListCountStrategy;
+
 
     public ProductService(
             ProductRepository productRepository,
@@ -40,7 +75,15 @@ public class ProductService {
             ProductAttributeOverrideRepository productAttributeOverrideRepository,
             ProductOptionOverrideRepository productOptionOverrideRepository,
             ProductTypeService productTypeService,
-            FileStorageServiceImpl fileStorageService
+            FileStorageServiceImpl fileStorageService,
+            ProductConstraintIndexService productConstraintIndexService,
+            AvailableOptionsCache availableOptionsCache,
+            ConfigurationSpaceService configurationSpaceService,
+            ProductAggregateLoader productAggregateLoader,
+            CustomerProductDetailsJsonRepository customerProductDetailsJsonRepository,
+            ProductReadModelService productReadModelService,
+            ProductCountService productCountService,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.productRepository = productRepository;
         this.productAttributeOverrideRepository = productAttributeOverrideRepository;
@@ -49,6 +92,14 @@ public class ProductService {
         this.productNotAllowedCombinationRepository = productNotAllowedCombinationRepository;
         this.productTypeService = productTypeService;
         this.fileStorageService = fileStorageService;
+        this.productConstraintIndexService = productConstraintIndexService;
+        this.availableOptionsCache = availableOptionsCache;
+        this.configurationSpaceService = configurationSpaceService;
+        this.productAggregateLoader = productAggregateLoader;
+        this.customerProductDetailsJsonRepository = customerProductDetailsJsonRepository;
+        this.productReadModelService = productReadModelService;
+        this.productCountService = productCountService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -120,14 +171,18 @@ public class ProductService {
             handleNACombinationsOverrides(product, nACombinationsOverrides);
         }
 
+        List<NotAllowedCombinationNormalizer.PrunedCombination> prunedCombinations = List.of();
         if (productNotAllowedCombinations != null) {
-            handleProductSpecificNotAllowedCombinations(product, productNotAllowedCombinations);
+            prunedCombinations = handleProductSpecificNotAllowedCombinations(product, productNotAllowedCombinations);
         }
 
+        eventPublisher.publishEvent(CatalogChangedEvent.product(product.getId()));
+
         // Build & Return Response
         ProductCreationResponse productCreationResponse = new ProductCreationResponse();
         productCreationResponse.setProductId(product.getId());
         productCreationResponse.setMessage("Product successfully created");
+        productCreationResponse.setPrunedCombinations(productTypeService.toPrunedResponses(prunedCombinations));
         return productCreationResponse;
     }
 
@@ -136,11 +191,21 @@ public class ProductService {
         List<ProductAttributeOverride> attributeOverrideEntities = new ArrayList<>();
         List<ProductOptionOverride> optionOverrideEntities = new ArrayList<>();
 
+        // Resolve every referenced attribute and option up front rather than one lookup per override
+        Map<Long, ProductTypeAttribute> attributes = productTypeService.getProductTypeAttributesById(
+                Optional.ofNullable(overrides.getDeactivatedAttributes()).orElse(List.of()).stream()
+                        .map(DeactivatedAttribute::getAttributeId)
+                        .toList());
+        Map<Long, ProductTypeAttributeOption> options = productTypeService.getProductTypeAttributeOptionsById(
+                Stream.concat(
+                        Optional.ofNullable(overrides.getDeactivatedOptions()).orElse(List.of()).stream(),
+                        Optional.ofNullable(overrides.getOutOfStockOptions()).orElse(List.of()).stream()
+                ).map(DeactivatedOption::getOptionId).toList());
+
         // Handle Attribute Deactivation Overrides
         if (overrides.getDeactivatedAttributes() != null) {
             for (DeactivatedAttribute deactivatedAttr : overrides.getDeactivatedAttributes()) {
-                ProductTypeAttribute attribute =
-                        productTypeService.getProductTypeAttributeById(deactivatedAttr.getAttributeId());
+                ProductTypeAttribute attribute = attributes.get(deactivatedAttr.getAttributeId());
 
                 ProductAttributeOverride attributeOverride = new ProductAttributeOverride();
                 attributeOverride.setProduct(product);
@@ -154,8 +219,7 @@ public class ProductService {
         // Handle Option Deactivation Overrides
         if (overrides.getDeactivatedOptions() != null) {
             for (DeactivatedOption deactivatedOpt : overrides.getDeactivatedOptions()) {
-                ProductTypeAttributeOption option =
-                        productTypeService.getProductTypeAttributeOptionById(deactivatedOpt.getOptionId());
+                ProductTypeAttributeOption option = options.get(deactivatedOpt.getOptionId());
 
                 ProductOptionOverride optionOverride = new ProductOptionOverride();
                 optionOverride.setProduct(product);
@@ -170,8 +234,7 @@ public class ProductService {
         // Handle Out of Stock Overrides
         if (overrides.getOutOfStockOptions() != null) {
             for (DeactivatedOption outOfStockOpt : overrides.getOutOfStockOptions()) {
-                ProductTypeAttributeOption option =
-                        productTypeService.getProductTypeAttributeOptionById(outOfStockOpt.getOptionId());
+                ProductTypeAttributeOption option = options.get(outOfStockOpt.getOptionId());
 
                 // Check for an existing override in the database
                 Optional<ProductOptionOverride> existingOverrideOpt =
@@ -211,11 +274,14 @@ public class ProductService {
             NotAllowedCombinationsOverrides nACombinationsOverrides)
     {
         List<ProductNACombinationOverride> deactivatedOverrides = new ArrayList<>();
+        Map<Long, NotAllowedCombination> combinations = productTypeService.getNotAllowedCombinationsById(
+                nACombinationsOverrides.getDeactivate().stream()
+                        .map(DeactivateCombination::getCombinationId)
+                        .toList());
 
         for (DeactivateCombination deactivateCombination : nACombinationsOverrides.getDeactivate()) {
             // Fetch NotAllowedCombination
-            NotAllowedCombination notAllowedCombination =
-                    productTypeService.getNotAllowedCombinationById(deactivateCombination.getCombinationId());
+            NotAllowedCombination notAllowedCombination = combinations.get(deactivateCombination.getCombinationId());
 
             if (notAllowedCombination == null) {
                 log.warn("Skipping deactivation: NotAllowedCombination with ID {} not found",
@@ -243,18 +309,59 @@ public class ProductService {
 
 
     @Transactional
-    private void handleProductSpecificNotAllowedCombinations(
+    private List<NotAllowedCombinationNormalizer.PrunedCombination> handleProductSpecificNotAllowedCombinations(
             Product product, List<List<NotAllowedCombinationItem>> productNotAllowedCombinations) {
 
-        List<ProductNotAllowedCombination> newCombinations = productNotAllowedCombinations.stream()
-                .peek(combinationList -> {
-                    if (combinationList.size() < 2) {
-                        throw new IllegalArgumentException(
-                                "Each product-specific not-allowed combination " +
-                                        "must have at least two attribute-option pairs."
-                        );
-                    }
-                })
+        for (List<NotAllowedCombinationItem> combinationList : productNotAllowedCombinations) {
+            if (combinationList.size() < 2) {
+                throw new IllegalArgumentException(
+                        "Each product-specific not-allowed combination " +
+                                "must have at least two attribute-option pairs."
+                );
+            }
+        }
+
+        // Leave out duplicates and supersets of the type combinations in force for this product and of its own
+        Set<Long> deactivatedCombinations = product.getNotAllowedCombinationsOverrides().stream()
+                .filter(override -> !override.isActive())
+                .map(override -> override.getNotAllowedCombination().getId())
+                .collect(Collectors.toSet());
+        Map<Integer, Set<Long>> existing = new HashMap<>();
+        for (NotAllowedCombination combination : product.getProductType().getNotAllowedCombinations()) {
+            if (!deactivatedCombinations.contains(combination.getId())) {
+                existing.put(existing.size(), combination.getOptions().stream()
+                        .map(element -> element.getAttributeOption().getId())
+                        .collect(Collectors.toSet()));
+            }
+        }
+        for (ProductNotAllowedCombination combination : product.getNotAllowedCombinations()) {
+            existing.put(existing.size(), combination.getOptions().stream()
+                    .map(element -> element.getOption().getId())
+                    .collect(Collectors.toSet()));
+        }
+        NotAllowedCombinationNormalizer.Result<Integer> normalization = NotAllowedCombinationNormalizer.normalize(
+                existing,
+                productNotAllowedCombinations.stream()
+                        .map(combination -> combination.stream()
+                                .map(NotAllowedCombinationItem::getAttributeOptionId)
+                                .collect(Collectors.<Long>toSet()))
+                        .toList()
+        );
+
+        List<List<NotAllowedCombinationItem>> kept = normalization.kept().stream()
+                .map(productNotAllowedCombinations::get)
+                .toList();
+        Map<Long, ProductTypeAttribute> attributes = productTypeService.getProductTypeAttributesById(kept.stream()
+                .flatMap(List::stream)
+                .map(NotAllowedCombinationItem::getAttributeId)
+                .toList());
+        Map<Long, ProductTypeAttributeOption> attributeOptions =
+                productTypeService.getProductTypeAttributeOptionsById(kept.stream()
+                        .flatMap(List::stream)
+                        .map(NotAllowedCombinationItem::getAttributeOptionId)
+                        .toList());
+
+        List<ProductNotAllowedCombination> newCombinations = kept.stream()
                 .map(combinationList -> {
                     // Save the combination first
                     ProductNotAllowedCombination combination = new ProductNotAllowedCombination();
@@ -265,17 +372,14 @@ public class ProductService {
                     ProductNotAllowedCombination finalCombination = combination;
                     List<ProductNotAllowedCombinationElement> options = combinationList.stream()
                             .map(optionDto -> {
-                                ProductTypeAttribute attribute =
-                                        productTypeService.getProductTypeAttributeById(optionDto.getAttributeId());
+                                ProductTypeAttribute attribute = attributes.get(optionDto.getAttributeId());
                                 if (attribute == null) {
                                     throw new IllegalArgumentException("Product Attribute not found with ID: "
                                             + optionDto.getAttributeId());
                                 }
 
                                 ProductTypeAttributeOption option =
-                                        productTypeService.getProductTypeAttributeOptionById(
-                                                optionDto.getAttributeOptionId()
-                                        );
+                                        attributeOptions.get(optionDto.getAttributeOptionId());
 
                                 if (option == null) {
                                     throw new IllegalArgumentException("Product Attribute Option not found with ID: "
@@ -300,25 +404,41 @@ public class ProductService {
 
         // Update product entity with new combinations
         product.getNotAllowedCombinations().addAll(newCombinations);
+
+        if (!normalization.pruned().isEmpty()) {
+            log.info("Skipped {} redundant not-allowed combinations for product {}",
+                    normalization.pruned().size(), product.getId());
+        }
+        return normalization.pruned();
     }
 
+    @Transactional(readOnly = true)
     public ProductDetailsResponse getProductDetails(UUID productId) {
-        // Fetch the product entity
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        return getProductDetails(productId, ProductSection.ADMIN_DETAILS);
+    }
+
+    // Sections left out are null in the response, and their queries are not run
+    @Transactional(readOnly = true)
+    public ProductDetailsResponse getProductDetails(UUID productId, Set<ProductSection> sections) {
+        // Fetch the product entity with its type, overrides and combinations in a fixed number of queries
+        Product product = productAggregateLoader.loadForAdmin(productId, sections);
 
         // Construct the response DTO
         ProductDetailsResponse response = new ProductDetailsResponse();
         response.setId(product.getId());
         response.setName(product.getName());
         response.setSku(product.getSku());
-        response.setDescription(product.getDescription());
+        if (sections.contains(ProductSection.DESCRIPTION)) {
+            response.setDescription(product.getDescription());
+        }
         response.setPrice(product.getPrice());
 
         // Use the base image path from properties
         response.setMainPicture(product.getMainPicture() != null ? getBaseUrl() + product.getMainPicture() : null);
 
-        if (product.getImageGallery() != null) {
+        if (!sections.contains(ProductSection.IMAGE_GALLERY)) {
+            response.setImageGallery(null);
+        } else if (product.getImageGallery() != null) {
             List<String> imageUrls = product.getImageGallery().stream()
                     .map(fileName -> getBaseUrl() + fileName)
                     .collect(Collectors.toList());
@@ -336,25 +456,32 @@ public class ProductService {
         response.setProductType(productTypeResponse);
 
         // Populate Product Type Attributes & Options (Considering Overrides)
-        List<AttributeResponseProduct> attributes = buildAttributeResponses(productType, product);
-        response.setProductAttributes(attributes);
+        response.setProductAttributes(sections.contains(ProductSection.ATTRIBUTES)
+                ? buildAttributeResponses(productType, product)
+                : null);
 
         // Populate Not Allowed Combinations from Product Type
-        List<NotAllowedCombinationResponse> notAllowedCombinations = buildNotAllowedCombinations(productType, product);
-        response.setProductNotAllowedCombinations(notAllowedCombinations);
+        response.setProductNotAllowedCombinations(sections.contains(ProductSection.TYPE_COMBINATIONS)
+                ? buildNotAllowedCombinations(productType, product)
+                : null);
 
         // Populate Product-Specific Not Allowed Combinations
-        List<ProductNotAllowedCombinationResponse> productSpecificCombinations =
-                buildProductSpecificNotAllowedCombinations(product);
-        response.setSpecificNotAllowedCombinations(productSpecificCombinations);
+        response.setSpecificNotAllowedCombinations(sections.contains(ProductSection.PRODUCT_COMBINATIONS)
+                ? buildProductSpecificNotAllowedCombinations(product)
+                : null);
 
         return response;
     }
 
     // Helper method to build Attribute Responses (Considering Overrides)
     private List<AttributeResponseProduct> buildAttributeResponses(ProductType productType, Product product) {
-        List<ProductAttributeOverride> attributeOverrides = product.getAttributeOverrides();
-        List<ProductOptionOverride> optionOverrides = product.getOptionOverrides();
+        // Index the overrides once, so each attribute and option is a hash lookup instead of a scan
+        Set<Long> overriddenAttributeIds = product.getAttributeOverrides().stream()
+                .map(override -> override.getAttribute().getId())
+                .collect(Collectors.toSet());
+        Map<Long, ProductOptionOverride> optionOverridesByOptionId = new HashMap<>();
+        product.getOptionOverrides()
+                .forEach(override -> optionOverridesByOptionId.putIfAbsent(override.getOption().getId(), override));
 
         return productType.getAttributes().stream()
                 .map(attr -> {
@@ -363,10 +490,7 @@ public class ProductService {
                     attrResponse.setName(attr.getAttributeName());
 
                     // Attribute is active if it is NOT in the override table
-                    boolean isAttributeActive = attributeOverrides.stream()
-                            .noneMatch(override -> override.getAttribute().getId().equals(attr.getId()));
-
-                    attrResponse.setActive(isAttributeActive);
+                    attrResponse.setActive(!overriddenAttributeIds.contains(attr.getId()));
 
                     // Map options while checking overrides
                     List<AttributeOptionResponse> options = attr.getOptions().stream()
@@ -375,11 +499,7 @@ public class ProductService {
                                 optionResponse.setId(opt.getId());
                                 optionResponse.setName(opt.getName());
 
-                                // Find the override for this option, if it exists
-                                ProductOptionOverride optionOverride = optionOverrides.stream()
-                                        .filter(override -> override.getOption().getId().equals(opt.getId()))
-                                        .findFirst()
-                                        .orElse(null);
+                                ProductOptionOverride optionOverride = optionOverridesByOptionId.get(opt.getId());
 
                                 // If there is NO override, assume the option is active and in stock
                                 if (optionOverride == null) {
@@ -402,20 +522,17 @@ public class ProductService {
 
 
     private List<NotAllowedCombinationResponse> buildNotAllowedCombinations(ProductType productType, Product product) {
-        List<ProductNACombinationOverride> combinationOverrides = product.getNotAllowedCombinationsOverrides();
+        Map<Long, ProductNACombinationOverride> overridesByCombinationId = new HashMap<>();
+        product.getNotAllowedCombinationsOverrides().forEach(override -> overridesByCombinationId
+                .putIfAbsent(override.getNotAllowedCombination().getId(), override));
 
         return productType.getNotAllowedCombinations().stream()
                 .map(comb -> {
                     NotAllowedCombinationResponse combResponse = new NotAllowedCombinationResponse();
                     combResponse.setCombinationId(comb.getId());
 
-                    // Check if an override exists for this combination
-                    ProductNACombinationOverride override = combinationOverrides.stream()
-                            .filter(ovr -> ovr.getNotAllowedCombination().getId().equals(comb.getId()))
-                            .findFirst()
-                            .orElse(null);
-
                     // If no override exists, assume the combination is active
+                    ProductNACombinationOverride override = overridesByCombinationId.get(comb.getId());
                     combResponse.setActive(override == null || override.isActive());
 
                     // Map combination options using setter methods
@@ -461,86 +578,62 @@ public class ProductService {
         return ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
     }
 
-    @Transactional
     public AvailableAttributeOptionsResponse getAvailableOptionsBySelection(
             UUID productId, Long requestedAttributeId, List<Long> selectedOptionIds
     ) {
-        // Validate Product Existence
-        Product product = getProductById(productId);
-
-        // Validate Requested Attribute Existence
-        ProductTypeAttribute requestedAttribute = productTypeService.getProductTypeAttributeById(requestedAttributeId);
-        List<ProductTypeAttributeOption> allOptions = requestedAttribute.getOptions();
+        // Validate Product Existence (the compiled index holds overrides and not-allowed combinations)
+        return availableOptionsCache.get(productId, requestedAttributeId, selectedOptionIds, index -> {
+            // Validate Requested Attribute Existence
+            int requestedAttribute = index.attributeIndexOf(requestedAttributeId);
+            if (requestedAttribute < 0) {
+                throw new IllegalArgumentException(
+                        "Product Type Attribute not found with ID: " + requestedAttributeId);
+            }
 
-        // Validate Selected Options
-        validateSelectedOptions(selectedOptionIds, requestedAttributeId);
+            // Validate Selected Options
+            long[] selection = index.encodeSelection(selectedOptionIds, requestedAttribute);
 
-        // Fetch Product-Specific Overrides
-        Set<Long> deactivatedAttributes = getDeactivatedAttributes(product);
-        Set<Long> deactivatedOptions = getDeactivatedOptions(product);
-        Set<Long> outOfStockOptions = getOutOfStockOptions(product);
+            // Filter Allowed Options (active attribute, active and in-stock options, not forbidden by a combination)
+            return buildAvailableAttributeOptions(index, requestedAttribute, selection);
+        });
+    }
 
-        // Fetch Not-Allowed Combinations
-        Set<Long> forbiddenOptions = new HashSet<>();
+    public AllAvailableOptionsResponse getAllAvailableOptionsBySelection(UUID productId, List<Long> selectedOptionIds) {
+        // One compiled index (overrides and not-allowed combinations) serves every attribute
+        ProductConstraintIndex index = productConstraintIndexService.getIndex(productId);
+        long[] selection = index.encodeSelection(selectedOptionIds);
 
-        // Fetch general product-type-based not-allowed combinations
-        forbiddenOptions.addAll(getForbiddenOptionsFromCombinations(
-                product.getProductType(), selectedOptionIds, requestedAttributeId)
-        );
+        List<AvailableAttributeOptionsResponse> attributes = new ArrayList<>();
+        for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+            if (!index.isAttributeActive(attribute)) {
+                continue;
+            }
+            // Ignore the option currently chosen for this attribute so that its alternatives are listed too
+            attributes.add(buildAvailableAttributeOptions(
+                    index, attribute, index.withoutAttribute(selection, attribute)));
+        }
 
-        // Fetch product-specific not-allowed combinations
-        forbiddenOptions.addAll(getForbiddenOptionsFromProductCombinations(
-                product, selectedOptionIds, requestedAttributeId)
-        );
+        return new AllAvailableOptionsResponse(productId, attributes);
+    }
 
-        // Filter Allowed Options
-        List<AttributeOption> availableOptions = allOptions.stream()
-                .filter(option -> !deactivatedAttributes.contains(requestedAttributeId)) // Ensure attribute is active
-                .filter(option -> !deactivatedOptions.contains(option.getId())) // Ensure option is active
-                .filter(option -> !forbiddenOptions.contains(option.getId())) // Ensure option is allowed
-                .filter(option -> !outOfStockOptions.contains(option.getId())) // Ensure is not out of stock
-                .map(option -> {
-                            AttributeOption opt = new AttributeOption();
-                            opt.setId(option.getId());
-                            opt.setName(option.getName());
-                            return opt;
-                        }
-                )
-                .collect(Collectors.toList());
+    private AvailableAttributeOptionsResponse buildAvailableAttributeOptions(
+            ProductConstraintIndex index, int attribute, long[] selection
+    ) {
+        List<AttributeOption> availableOptions = new ArrayList<>();
+        for (int ordinal : configurationSpaceService.availableOptions(index, attribute, selection)) {
+            AttributeOption opt = new AttributeOption();
+            opt.setId(index.optionId(ordinal));
+            opt.setName(index.optionName(ordinal));
+            availableOptions.add(opt);
+        }
 
-        // Return Response DTO
         return new AvailableAttributeOptionsResponse(
-                requestedAttribute.getId(),
-                requestedAttribute.getAttributeName(),
+                index.attributeId(attribute),
+                index.attributeName(attribute),
                 availableOptions
         );
     }
 
-    private void validateSelectedOptions(List<Long> selectedOptionIds, Long requestedAttributeId) {
-        Map<Long, Long> selectedAttributesMap = new HashMap<>();
-
-        for (Long optionId : selectedOptionIds) {
-            ProductTypeAttributeOption option = productTypeService.getProductTypeAttributeOptionById(optionId);
-            if (option == null) {
-                throw new IllegalArgumentException("Invalid option ID: " + optionId);
-            }
-
-            Long attributeId = option.getAttribute().getId();
-
-            // Ensure that each attribute has only one selected option
-            if (selectedAttributesMap.containsValue(attributeId)) {
-                throw new IllegalArgumentException("Multiple options selected for the same attribute: " + attributeId);
-            }
-
-            // Ensure no selected option belongs to the requested attribute
-            if (attributeId.equals(requestedAttributeId)) {
-                throw new IllegalArgumentException("Selected option belongs to the requested attribute: " + optionId);
-            }
-
-            selectedAttributesMap.put(optionId, attributeId);
-        }
-    }
-
     public Product getProductById(UUID productId) {
         return productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
@@ -553,193 +646,314 @@ public class ProductService {
                 .collect(Collectors.toSet());
     }
 
-    private Set<Long> getDeactivatedOptions(Product product) {
-        return productOptionOverrideRepository.findByProductAndActiveFalse(product)
-                .stream()
-                .map(override -> override.getOption().getId())
-                .collect(Collectors.toSet());
+    @Transactional(readOnly = true)
+    public ProductDetailsCustomerResponse getProductDetailsForCustomer(UUID productId) {
+        return getProductDetailsForCustomer(productId, ProductSection.CUSTOMER_DETAILS);
     }
 
-    private Set<Long> getOutOfStockOptions(Product product) {
-        return productOptionOverrideRepository.findByProductAndOutOfStockTrue(product)
-                .stream()
-                .map(override -> override.getOption().getId())
-                .collect(Collectors.toSet());
+    /**
+     * Whether the customer details with these sections are rendered as a JSON document by the database (the sql-json
+     * read path), to be read with {@link #getProductDetailsJsonForCustomer}. The document is complete, so partial
+     * responses use the entity path, as do callers that need the DTO.
+     */
+    public boolean rendersProductDetailsJsonForCustomer(Set<ProductSection> sections) {
+        return "sql-json".equals(customerDetailsReadPath) && sections.containsAll(ProductSection.CUSTOMER_DETAILS);
     }
 
-    private Set<Long> getForbiddenOptionsFromCombinations(
-            ProductType productType, List<Long> selectedOptionIds, Long requestedAttributeId
-    ) {
-        Set<Long> forbiddenOptions = new HashSet<>();
-        List<NotAllowedCombination> combinations = productType.getNotAllowedCombinations();
-
-        for (NotAllowedCombination combination : combinations) {
-            List<NotAllowedCombinationElement> elements = combination.getOptions();
+    @Transactional(readOnly = true)
+    public String getProductDetailsJsonForCustomer(UUID productId) {
+        return customerProductDetailsJsonRepository.findCustomerDetailsJson(productId, getBaseUrl())
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+    }
 
-            // Extract the set of options in the forbidden combination
-            Set<Long> forbiddenSet = elements.stream()
-                    .map(element -> element.getAttributeOption().getId())
-                    .collect(Collectors.toSet());
+    // Sections left out are null in the response. The entity path does not load them; the stored documents of the
+    // read model are complete.
+    @Transactional(readOnly = true)
+    public ProductDetailsCustomerResponse getProductDetailsForCustomer(UUID productId, Set<ProductSection> sections) {
+        boolean allSections = sections.containsAll(ProductSection.CUSTOMER_DETAILS);
 
-            // Ensure the forbidden set contains an option for the requested attribute
-            Optional<Long> forbiddenOptionForRequestedAttribute = elements.stream()
-                    .filter(element -> element.getAttribute().getId().equals(requestedAttributeId))
-                    .map(element -> element.getAttributeOption().getId())
-                    .findFirst();
+        // Precomputed view, with active and in-stock attributes & options only
+        Optional<ProductDetailsCustomerResponse> readModel = "read-model".equals(customerDetailsReadPath)
+                ? productReadModelService.findCustomerDetails(productId)
+                : Optional.empty();
 
-            if (forbiddenOptionForRequestedAttribute.isPresent()) {
-                Long forbiddenOption = forbiddenOptionForRequestedAttribute.get();
+        // Otherwise derive it from the Product Entity with its attributes, options and images
+        ProductDetailsCustomerResponse response = readModel
+                .map(details -> allSections ? details : withSections(details, sections))
+                .orElseGet(() -> productReadModelService.buildCustomerDetails(
+                        productAggregateLoader.loadForCustomer(productId, sections), sections));
 
-                // Check if selecting this option would complete a forbidden combination
-                Set<Long> selectedSet = new HashSet<>(selectedOptionIds);
-                selectedSet.add(forbiddenOption); // Simulate selecting this option
+        return withImageUrls(response);
+    }
 
-                if (selectedSet.containsAll(forbiddenSet)) {
-                    forbiddenOptions.add(forbiddenOption);
-                }
-            }
+    private ProductDetailsCustomerResponse withSections(
+            ProductDetailsCustomerResponse response, Set<ProductSection> sections
+    ) {
+        if (!sections.contains(ProductSection.DESCRIPTION)) {
+            response.setDescription(null);
+        }
+        if (!sections.contains(ProductSection.IMAGE_GALLERY)) {
+            response.setImageGallery(null);
+        }
+        if (!sections.contains(ProductSection.ATTRIBUTES)) {
+            response.setProductAttributes(null);
         }
-        return forbiddenOptions;
+        return response;
     }
 
+    @Transactional(readOnly = true)
+    public ProductDetailsBatchResponse getProductDetailsBatchForCustomer(List<UUID> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one product ID is required");
+        }
+        Set<UUID> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.size() > detailsBatchMaxSize) {
+            throw new IllegalArgumentException(
+                    "At most " + detailsBatchMaxSize + " products can be requested at once");
+        }
+
+        // Read model rows first, then the remaining products with set-based entity queries
+        Map<UUID, ProductDetailsCustomerResponse> details = new HashMap<>();
+        if ("read-model".equals(customerDetailsReadPath)) {
+            details.putAll(productReadModelService.findCustomerDetails(uniqueIds));
+        }
+        Set<UUID> remainingIds = new LinkedHashSet<>(uniqueIds);
+        remainingIds.removeAll(details.keySet());
+        if (!remainingIds.isEmpty()) {
+            details.putAll(productReadModelService.buildCustomerDetails(
+                    productAggregateLoader.loadForCustomer(remainingIds)));
+        }
 
-    private Set<Long> getForbiddenOptionsFromProductCombinations(
-            Product product, List<Long> selectedOptionIds, Long requestedAttributeId) {
+        // One result per requested product, in request order
+        List<ProductDetailsBatchResult> results = uniqueIds.stream()
+                .map(productId -> {
+                    ProductDetailsBatchResult result = new ProductDetailsBatchResult(productId);
+                    ProductDetailsCustomerResponse productDetails = details.get(productId);
+                    if (productDetails == null) {
+                        result.setError("Product not found with ID: " + productId);
+                    } else {
+                        result.setProduct(withImageUrls(productDetails));
+                    }
+                    return result;
+                })
+                .collect(Collectors.toList());
 
-        Set<Long> forbiddenOptions = new HashSet<>();
-        List<ProductNotAllowedCombination> combinations = productNotAllowedCombinationRepository.findByProduct(product);
+        ProductDetailsBatchResponse response = new ProductDetailsBatchResponse();
+        response.setResults(results);
+        return response;
+    }
 
-        for (ProductNotAllowedCombination combination : combinations) {
-            List<ProductNotAllowedCombinationElement> elements = combination.getOptions();
+    // Adds the base URL to the image file names
+    private ProductDetailsCustomerResponse withImageUrls(ProductDetailsCustomerResponse response) {
+        response.setMainPicture(toImageUrl(response.getMainPicture()));
+        if (response.getImageGallery() != null) {
+            response.setImageGallery(response.getImageGallery().stream()
+                    .map(this::toImageUrl)
+                    .collect(Collectors.toList()));
+        }
+        return response;
+    }
 
-            // Extract the set of options in the forbidden combination
-            Set<Long> forbiddenSet = elements.stream()
-                    .map(element -> element.getOption().getId())
-                    .collect(Collectors.toSet());
+    @Transactional(readOnly = true)
+    public ProductListResponse getProductList(
+            Integer page, Integer size, String cursor, Boolean includeTotal, Set<ProductSection> sections
+    ) {
+        return getProductList(page, size, cursor, includeTotal, sections, customerListCountStrategy);
+    }
 
-            // Ensure the forbidden set contains an option for the requested attribute
-            Optional<Long> forbiddenOptionForRequestedAttribute = elements.stream()
-                    .filter(element -> element.getAttribute().getId().equals(requestedAttributeId))
-                    .map(element -> element.getOption().getId())
-                    .findFirst();
+    @Transactional(readOnly = true)
+    public ProductListResponse getAdminProductList(
+            Integer page, Integer size, String cursor, Boolean includeTotal, Set<ProductSection> sections
+    ) {
+        return getProductList(page, size, cursor, includeTotal, sections, adminListCountStrategy);
+    }
 
-            if (forbiddenOptionForRequestedAttribute.isPresent()) {
-                Long forbiddenOption = forbiddenOptionForRequestedAttribute.get();
+    private ProductListResponse getProductList(
+            Integer page,
+            Integer size,
+            String cursor,
+            Boolean includeTotal,
+            Set<ProductSection> sections,
+            ProductCountStrategy countStrategy
+    ) {
+        if (cursor != null) {
+            ProductCountStrategy cursorCountStrategy =
+                    Boolean.TRUE.equals(includeTotal) ? countStrategy : ProductCountStrategy.NONE;
+            return getProductListAfter(ProductListCursor.decode(cursor), size, sections, cursorCountStrategy);
+        }
 
-                // Check if selecting this option would complete a forbidden combination
-                Set<Long> selectedSet = new HashSet<>(selectedOptionIds);
-                selectedSet.add(forbiddenOption); // Simulate selecting this option
+        // Convert 1-based input page to 0-based for Spring Data
+        int adjustedPage = (page != null && page > 0) ? page - 1 : 0;
 
-                if (selectedSet.containsAll(forbiddenSet)) {
-                    forbiddenOptions.add(forbiddenOption);
-                }
-            }
+        // Either one query on the read model, or list rows projected from products joined with their type. The ID
+        // breaks name ties, so that the next cursor continues exactly where this page ends.
+        boolean readModel = "read-model".equals(productListReadPath);
+        Pageable pageable = PageRequest.of(adjustedPage, size,
+                Sort.by("name", readModel ? "productId" : "id").ascending());
+
+        // Only the exact strategy counts along with the page; the others read a slice, which has no count query
+        Slice<ProductListItemResponse> productPage;
+        OptionalLong totalItems;
+        if (countStrategy == ProductCountStrategy.EXACT) {
+            Page<ProductListItemResponse> exactPage = readModel
+                    ? productReadModelService.findListItems(pageable)
+                    : productRepository.findListRows(pageable).map(this::toListItem);
+            productPage = exactPage;
+            totalItems = OptionalLong.of(exactPage.getTotalElements());
+        } else {
+            productPage = readModel
+                    ? productReadModelService.findListItemSlice(pageable)
+                    : productRepository.findListRowSlice(pageable).map(this::toListItem);
+            totalItems = productCountService.count(countStrategy);
         }
-        return forbiddenOptions;
+
+        ProductListResponse response = new ProductListResponse();
+        response.setCurrentPage(productPage.getNumber() + 1); // Convert back to 1-based
+        response.setPageSize(productPage.getSize());
+        return withProducts(response, productPage.getContent(), sections, totalItems, productPage.isLast());
     }
 
-    public ProductDetailsCustomerResponse getProductDetailsForCustomer(UUID productId) {
-        // Fetch the Product Entity
-        Product product = getProductById(productId);
+    // Keyset page: seeks past the cursor in the (name, id) index, so it costs the same however deep it is
+    private ProductListResponse getProductListAfter(
+            ProductListCursor cursor, int size, Set<ProductSection> sections, ProductCountStrategy countStrategy
+    ) {
+        // One product more than the page size tells whether there is a next page without counting
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ProductListItemResponse> products = "read-model".equals(productListReadPath)
+                ? productReadModelService.findListItemsAfter(cursor, limit)
+                : productRepository.findListRowsAfter(cursor.name(), cursor.id(), limit).stream()
+                        .map(this::toListItem)
+                        .collect(Collectors.toList());
+        boolean lastPage = products.size() <= size;
 
-        // Build Response DTO
-        ProductDetailsCustomerResponse response = new ProductDetailsCustomerResponse();
-        response.setId(product.getId());
-        response.setName(product.getName());
-        response.setSku(product.getSku());
-        response.setDescription(product.getDescription());
-        response.setPrice(product.getPrice());
+        ProductListResponse response = new ProductListResponse();
+        response.setPageSize(size);
+        return withProducts(response, lastPage ? products : products.subList(0, size), sections,
+                productCountService.count(countStrategy), lastPage);
+    }
 
-        // Format Image URLs
-        response.setMainPicture(product.getMainPicture() != null ? getBaseUrl() + product.getMainPicture() : null);
+    // Served from the catalog snapshot, without touching the database
 
-        if (product.getImageGallery() != null) {
-            List<String> imageUrls = product.getImageGallery().stream()
-                    .map(fileName -> getBaseUrl() + fileName)
-                    .collect(Collectors.toList());
-            response.setImageGallery(imageUrls);
+    public ProductDetailsCustomerResponse getProductDetailsForCustomer(
+            CatalogSnapshot snapshot, UUID productId, Set<ProductSection> sections
+    ) {
+        ProductDetailsCustomerResponse response = snapshot.findCustomerDetails(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        return withImageUrls(sections.containsAll(ProductSection.CUSTOMER_DETAILS)
+                ? response
+                : withSections(response, sections));
+    }
+
+    public ProductDetailsBatchResponse getProductDetailsBatchForCustomer(
+            CatalogSnapshot snapshot, List<UUID> productIds
+    ) {
+        if (productIds == null || productIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one product ID is required");
+        }
+        Set<UUID> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.size() > detailsBatchMaxSize) {
+            throw new IllegalArgumentException(
+                    "At most " + detailsBatchMaxSize + " products can be requested at once");
         }
 
-        // Retrieve Active and In-Stock Attributes & Options
-        List<AttributeResponseCustomer> attributes = getActiveAndInStockAttributes(product);
-        response.setProductAttributes(attributes);
+        List<ProductDetailsBatchResult> results = uniqueIds.stream()
+                .map(productId -> {
+                    ProductDetailsBatchResult result = new ProductDetailsBatchResult(productId);
+                    snapshot.findCustomerDetails(productId).ifPresentOrElse(
+                            details -> result.setProduct(withImageUrls(details)),
+                            () -> result.setError("Product not found with ID: " + productId));
+                    return result;
+                })
+                .collect(Collectors.toList());
 
+        ProductDetailsBatchResponse response = new ProductDetailsBatchResponse();
+        response.setResults(results);
         return response;
     }
 
-    private List<AttributeResponseCustomer> getActiveAndInStockAttributes(Product product) {
-        // Retrieve product-specific overrides
-        Set<Long> deactivatedAttributes = getDeactivatedAttributes(product);
-        Set<Long> deactivatedOptions = getDeactivatedOptions(product);
-        Set<Long> outOfStockOptions = getOutOfStockOptions(product);
-
-        return product.getProductType().getAttributes().stream()
-                // Exclude deactivated attributes
-                .filter(attribute -> !deactivatedAttributes.contains(attribute.getId()))
-                .map(attribute -> {
-                    List<AttributeOptionCustomer> validOptions = attribute.getOptions().stream()
-                            // Exclude deactivated options
-                            .filter(option -> !deactivatedOptions.contains(option.getId()))
-                            // Exclude out-of-stock options
-                            .filter(option -> !outOfStockOptions.contains(option.getId()))
-                            .map(option -> {
-                                AttributeOptionCustomer atOpt = new AttributeOptionCustomer();
-                                atOpt.setId(option.getId());
-                                atOpt.setName(option.getName());
-                                return atOpt;
-                            })
-                            .collect(Collectors.toList());
-                    AttributeResponseCustomer at = new AttributeResponseCustomer();
-                    at.setId(attribute.getId());
-                    at.setName(attribute.getAttributeName());
-                    at.setOptions(validOptions);
-                    return at;
-                })
-                .collect(Collectors.toList());
-    }
+    // The snapshot knows its size, so totals are exact unless they are not wanted at all
+    public ProductListResponse getProductList(
+            CatalogSnapshot snapshot,
+            Integer page,
+            Integer size,
+            String cursor,
+            Boolean includeTotal,
+            Set<ProductSection> sections
+    ) {
+        boolean countWanted = customerListCountStrategy != ProductCountStrategy.NONE
+                && (cursor == null || Boolean.TRUE.equals(includeTotal));
+        OptionalLong totalItems = countWanted ? OptionalLong.of(snapshot.size()) : OptionalLong.empty();
+
+        ProductListResponse response = new ProductListResponse();
+        response.setPageSize(size);
+        if (cursor != null) {
+            List<ProductListItemResponse> products =
+                    snapshot.getListItemsAfter(ProductListCursor.decode(cursor), size + 1);
+            boolean lastPage = products.size() <= size;
+            return withProducts(response, lastPage ? products : products.subList(0, size), sections,
+                    totalItems, lastPage);
+        }
 
-    public ProductListResponse getProductList(Integer page, Integer size) {
-        // Convert 1-based input page to 0-based for Spring Data
         int adjustedPage = (page != null && page > 0) ? page - 1 : 0;
+        int offset = adjustedPage * size;
+        response.setCurrentPage(adjustedPage + 1);
+        return withProducts(response, snapshot.getListItems(offset, size), sections, totalItems,
+                offset + size >= snapshot.size());
+    }
 
-        Pageable pageable = PageRequest.of(adjustedPage, size, Sort.by("name").ascending());
-
-        Page<Product> productPage = productRepository.findAll(pageable);
-
-        List<ProductListItemResponse> productList = productPage.getContent().stream()
-                .map(product -> {
-                    ProductListItemResponse response = new ProductListItemResponse();
-                    response.setId(product.getId());
-                    response.setName(product.getName());
-                    response.setDescription(product.getDescription());
-                    response.setSku(product.getSku());
-                    response.setProductTypeName(product.getProductType().getName());
-                    response.setPrice(product.getPrice());
-                    response.setMainPicture(product.getMainPicture() != null ?
-                            getBaseUrl() + product.getMainPicture()
-                            :
-                            null);
-                    return response;
-                })
-                .collect(Collectors.toList());
+    private ProductListItemResponse toListItem(ProductListRow row) {
+        ProductListItemResponse response = new ProductListItemResponse();
+        response.setId(row.id());
+        response.setName(row.name());
+        response.setDescription(row.description());
+        response.setSku(row.sku());
+        response.setProductTypeName(row.productTypeName());
+        response.setPrice(row.price());
+        response.setMainPicture(row.mainPicture());
+        return response;
+    }
 
-        ProductListResponse response = new ProductListResponse();
-        response.setProducts(productList);
-        response.setCurrentPage(productPage.getNumber() + 1); // Convert back to 1-based
-        response.setPageSize(productPage.getSize());
-        response.setTotalItems((int) productPage.getTotalElements());
-        response.setTotalPages(productPage.getTotalPages());
-        response.setLastPage(productPage.isLast());
+    private ProductListResponse withProducts(
+            ProductListResponse response,
+            List<ProductListItemResponse> products,
+            Set<ProductSection> sections,
+            OptionalLong totalItems,
+            boolean lastPage
+    ) {
+        totalItems.ifPresent(total -> {
+            response.setTotalItems((int) total);
+            response.setTotalPages((int) ((total + response.getPageSize() - 1) / response.getPageSize()));
+        });
+        products.forEach(item -> {
+            item.setMainPicture(toImageUrl(item.getMainPicture()));
+            if (!sections.contains(ProductSection.DESCRIPTION)) {
+                item.setDescription(null);
+            }
+        });
+        response.setProducts(products);
+        response.setLastPage(lastPage);
+        if (!lastPage && !products.isEmpty()) {
+            ProductListItemResponse last = products.get(products.size() - 1);
+            response.setNextCursor(new ProductListCursor(last.getName(), last.getId()).encode());
+        }
         return response;
     }
 
+    private String toImageUrl(String fileName) {
+        return fileName != null ? getBaseUrl() + fileName : null;
+    }
+
     public ProductTypeAttributeOption getOptionById(Long optionId) {
         return productTypeService.getProductTypeAttributeOptionById(optionId);
     }
 
+    public Map<Long, ProductTypeAttributeOption> getOptionsById(Collection<Long> optionIds) {
+        return productTypeService.getProductTypeAttributeOptionsById(optionIds);
+    }
+
     public Set<Long> getValidAttributeIdsForProduct(UUID productId) {
-        // Retrieve the product
-        Product product = productRepository.findById(productId)
+        // Retrieve the product with its type attributes
+        Product product = productRepository.findWithTypeAttributesById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
 
         // Get all attributes from the product type
@@ -764,5 +978,6 @@ public class ProductService {
     public void deleteProduct(UUID productId) {
         Product product = getProductById(productId);
         productRepository.delete(product);
+        eventPublisher.publishEvent(CatalogChangedEvent.product(productId));
     }
 }
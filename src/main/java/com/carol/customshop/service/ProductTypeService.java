@@ -2,43 +2,59 @@ package com.carol.customshop.service;
 
 import com.carol.customshop.dto.*;
 import com.carol.customshop.entity.*;
-import com.carol.customshop.repository.NotAllowedCombinationRepository;
-import com.carol.customshop.repository.ProductTypeAttributeOptionRepository;
-import com.carol.customshop.repository.ProductTypeAttributeRepository;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductNotAllowedCombinationRepository;
 import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.constraint.ConfigurationSpaceAnalysis;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
 import com.carol.customshop.service.interfaces.IProductTypeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ProductTypeService {
 
     private final ProductTypeRepository productTypeRepository;
 
-    private final ProductTypeAttributeRepository productTypeAttributeRepository;
+    private final ProductTypeServiceFactory productTypeServiceFactory;
 
-    private final ProductTypeAttributeOptionRepository productTypeAttributeOptionRepository;
+    private final ProductConstraintIndexService productConstraintIndexService;
 
-    private final NotAllowedCombinationRepository notAllowedCombinationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    private final ProductTypeServiceFactory productTypeServiceFactory;
+    private final CatalogDictionary catalogDictionary;
+
+    private final ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository;
 
     public ProductTypeService(
             ProductTypeRepository productTypeRepository,
-            ProductTypeAttributeRepository productTypeAttributeRepository,
-            ProductTypeAttributeOptionRepository productTypeAttributeOptionRepository,
-            NotAllowedCombinationRepository notAllowedCombinationRepository,
-            ProductTypeServiceFactory productTypeServiceFactory
+            ProductTypeServiceFactory productTypeServiceFactory,
+            ProductConstraintIndexService productConstraintIndexService,
+            ApplicationEventPublisher eventPublisher,
+            CatalogDictionary catalogDictionary,
+            ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository
     ) {
         this.productTypeRepository = productTypeRepository;
-        this.productTypeAttributeRepository = productTypeAttributeRepository;
-        this.productTypeAttributeOptionRepository = productTypeAttributeOptionRepository;
-        this.notAllowedCombinationRepository = notAllowedCombinationRepository;
         this.productTypeServiceFactory = productTypeServiceFactory;
+        this.productConstraintIndexService = productConstraintIndexService;
+        this.eventPublisher = eventPublisher;
+        this.catalogDictionary = catalogDictionary;
+        this.productNotAllowedCombinationRepository = productNotAllowedCombinationRepository;
     }
 
     @Transactional
@@ -58,18 +74,76 @@ public class ProductTypeService {
     public boolean addAttributesToProductType(AddAttributesRequest addAttributesRequest) {
         IProductTypeService specificProductTypeService = getProductTypeService(addAttributesRequest.getProductTypeID());
         // Delegate the operation to the appropriate Product Type service
-        return specificProductTypeService.addAttributesToProductType(addAttributesRequest.getProductTypeID(),
+        boolean added = specificProductTypeService.addAttributesToProductType(addAttributesRequest.getProductTypeID(),
                 addAttributesRequest.getAttributes());
+
+        eventPublisher.publishEvent(
+                CatalogChangedEvent.productType(UUID.fromString(addAttributesRequest.getProductTypeID())));
+        return added;
     }
 
     @Transactional
-    public void addNotAllowedCombinations(NotAllowedCombinationsRequest request) {
+    public AddNotAllowedCombinations200Response addNotAllowedCombinations(NotAllowedCombinationsRequest request) {
         IProductTypeService specificProductTypeService = getProductTypeService(request.getProductTypeId());
         // Delegate the operation to the appropriate Product Type service
-        specificProductTypeService.addNotAllowedCombinations(
-                request.getProductTypeId(),
-                request.getNotAllowedCombinations()
-        );
+        NotAllowedCombinationNormalizer.Result<Long> normalization =
+                specificProductTypeService.addNotAllowedCombinations(
+                        request.getProductTypeId(),
+                        request.getNotAllowedCombinations()
+                );
+
+        eventPublisher.publishEvent(CatalogChangedEvent.productType(UUID.fromString(request.getProductTypeId())));
+
+        // Report what the rules now leave reachable, so that over-constrained types are noticed when written
+        ConfigurationSpaceAnalysis analysis =
+                productConstraintIndexService.analyzeProductType(getProductTypeById(request.getProductTypeId()));
+        if (!analysis.getDeadOptionIds().isEmpty()) {
+            log.warn("Product type {} has options that can no longer be part of a complete configuration: {}",
+                    request.getProductTypeId(), analysis.getDeadOptionIds());
+        }
+
+        AddNotAllowedCombinations200Response response = new AddNotAllowedCombinations200Response();
+        if (analysis.isComplete()) {
+            BigInteger count = analysis.getValidConfigurationCount();
+            if (count.bitLength() < Long.SIZE) {
+                response.setValidConfigurationCount(count.longValue());
+            }
+            response.setDeadOptionIds(new ArrayList<>(analysis.getDeadOptionIds()));
+        }
+        response.setPrunedCombinations(toPrunedResponses(normalization.pruned()));
+        response.setSupersededCombinationIds(new ArrayList<>(normalization.superseded()));
+        response.setSupersededProductCombinationIds(new ArrayList<>(
+                supersededProductCombinations(request, normalization.kept())));
+        return response;
+    }
+
+    // Product-level combinations of the type's products that the stored type combinations now cover
+    private Set<Long> supersededProductCombinations(NotAllowedCombinationsRequest request, List<Integer> kept) {
+        if (kept.isEmpty()) {
+            return Set.of();
+        }
+        List<Set<Long>> added = kept.stream()
+                .map(position -> request.getNotAllowedCombinations().get(position).stream()
+                        .map(NotAllowedCombinationItem::getAttributeOptionId)
+                        .collect(Collectors.toSet()))
+                .toList();
+        Map<Long, Set<Long>> productCombinations = new LinkedHashMap<>();
+        for (ProductNotAllowedCombination combination : productNotAllowedCombinationRepository
+                .findWithOptionsByProductProductTypeId(UUID.fromString(request.getProductTypeId()))) {
+            productCombinations.put(combination.getId(), combination.getOptions().stream()
+                    .map(element -> element.getOption().getId())
+                    .collect(Collectors.toSet()));
+        }
+        return NotAllowedCombinationNormalizer.superseded(productCombinations, added);
+    }
+
+    public List<PrunedNotAllowedCombination> toPrunedResponses(
+            List<NotAllowedCombinationNormalizer.PrunedCombination> pruned) {
+        return pruned.stream()
+                .map(combination -> new PrunedNotAllowedCombination(
+                        new ArrayList<>(combination.optionIds()),
+                        PrunedNotAllowedCombination.ReasonEnum.valueOf(combination.reason().name())))
+                .collect(Collectors.toList());
     }
 
     public List<ProductTypeItemResponse> getProductTypes() {
@@ -127,20 +201,57 @@ public class ProductTypeService {
     }
 
     public ProductTypeAttribute getProductTypeAttributeById(Long attributeId) {
-        return productTypeAttributeRepository.findById(attributeId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Product Type Attribute not found with ID: " + attributeId));
+        return catalogDictionary.getAttribute(attributeId)
+                .orElseThrow(() -> attributeNotFound(attributeId));
+    }
+
+    // Resolves all the IDs with at most one query
+    public Map<Long, ProductTypeAttribute> getProductTypeAttributesById(Collection<Long> attributeIds) {
+        Map<Long, ProductTypeAttribute> attributes = catalogDictionary.getAttributes(attributeIds);
+        requireAll(attributeIds, attributes, this::attributeNotFound);
+        return attributes;
     }
 
     public ProductTypeAttributeOption getProductTypeAttributeOptionById(Long optionId) {
-        return productTypeAttributeOptionRepository.findById(optionId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Product Type Attribute Option not found with ID: " + optionId));
+        return catalogDictionary.getOption(optionId)
+                .orElseThrow(() -> optionNotFound(optionId));
+    }
+
+    public Map<Long, ProductTypeAttributeOption> getProductTypeAttributeOptionsById(Collection<Long> optionIds) {
+        Map<Long, ProductTypeAttributeOption> options = catalogDictionary.getOptions(optionIds);
+        requireAll(optionIds, options, this::optionNotFound);
+        return options;
     }
 
     public NotAllowedCombination getNotAllowedCombinationById(Long combinationId) {
-        return notAllowedCombinationRepository.findById(combinationId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Not-allowed combination not found with ID: " + combinationId));
+        return catalogDictionary.getCombination(combinationId)
+                .orElseThrow(() -> combinationNotFound(combinationId));
+    }
+
+    public Map<Long, NotAllowedCombination> getNotAllowedCombinationsById(Collection<Long> combinationIds) {
+        Map<Long, NotAllowedCombination> combinations = catalogDictionary.getCombinations(combinationIds);
+        requireAll(combinationIds, combinations, this::combinationNotFound);
+        return combinations;
+    }
+
+    private static void requireAll(
+            Collection<Long> ids, Map<Long, ?> found, Function<Long, IllegalArgumentException> notFound) {
+        for (Long id : ids) {
+            if (!found.containsKey(id)) {
+                throw notFound.apply(id);
+            }
+        }
+    }
+
+    private IllegalArgumentException attributeNotFound(Long attributeId) {
+        return new IllegalArgumentException("Product Type Attribute not found with ID: " + attributeId);
+    }
+
+    private IllegalArgumentException optionNotFound(Long optionId) {
+        return new IllegalArgumentException("Product Type Attribute Option not found with ID: " + optionId);
+    }
+
+    private IllegalArgumentException combinationNotFound(Long combinationId) {
+        return new IllegalArgumentException("Not-allowed combination not found with ID: " + combinationId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.carol.customshop.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical requests share one computation: the first caller for a key computes the value, callers
+ * arriving while it runs wait for it and get the same value, or the same exception. Nothing is kept once the
+ * computation is over, so the next request computes again.
+ * <p>
+ * Computed and coalesced requests are published as {@code coalescing.requests} meters, tagged with the name and the
+ * result, and the computations running as {@code coalescing.in-flight}.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong computed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public RequestCoalescer(String name, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("coalescing.requests", computed, AtomicLong::get)
+                .tag("name", name).tag("result", "computed")
+                .register(meterRegistry);
+        FunctionCounter.builder("coalescing.requests", coalesced, AtomicLong::get)
+                .tag("name", name).tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("coalescing.in-flight", inFlight, Map::size)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the value computed by {@code loader}, or by the computation already running for the same key.
+     * The value may be shared between callers and must not be modified.
+     */
+    public V get(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return join(running);
+        }
+
+        computed.incrementAndGet();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public long getComputedCount() {
+        return computed.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    // Waiters see the computation's own exception, e.g. a not-found IllegalArgumentException
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
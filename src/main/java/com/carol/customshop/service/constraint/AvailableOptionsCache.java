@@ -0,0 +1,151 @@
+package com.carol.customshop.service.constraint;
+
+import com.carol.customshop.dto.AvailableAttributeOptionsResponse;
+import com.carol.customshop.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches available-options answers per (product, requested attribute, selection).
+ * <p>
+ * The selection is sorted before it becomes part of the key, so the same question asked with the options in a
+ * different order hits the same entry. The cache is a bounded LRU: once full, the least recently read answer is
+ * dropped. Entries are evicted when their product, or the product type it belongs to, changes, and an entry is
+ * only served while the compiled index it was computed from is still current.
+ * Hits, misses and the current size are published as {@code cache.gets} / {@code cache.size} meters.
+ */
+@Slf4j
+@Component
+public class AvailableOptionsCache {
+
+    private static final String CACHE_NAME = "availableOptions";
+
+    private final ProductConstraintIndexService productConstraintIndexService;
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public AvailableOptionsCache(
+            ProductConstraintIndexService productConstraintIndexService,
+            @Value("${available-options.cache.max-size:10000}") int maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.productConstraintIndexService = productConstraintIndexService;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > AvailableOptionsCache.this.maxSize;
+            }
+        };
+
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tag("cache", CACHE_NAME).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tag("cache", CACHE_NAME).tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, AvailableOptionsCache::size)
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached answer, or computes and stores it. Failures of {@code loader} are not cached.
+     * The returned response is shared between callers and must not be modified.
+     */
+    public AvailableAttributeOptionsResponse get(
+            UUID productId, Long requestedAttributeId, List<Long> selectedOptionIds,
+            Function<ProductConstraintIndex, AvailableAttributeOptionsResponse> loader
+    ) {
+        Key key = new Key(productId, requestedAttributeId, fingerprint(selectedOptionIds));
+        ProductConstraintIndex index = productConstraintIndexService.getIndex(productId);
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            // An answer computed from an index that has since been replaced is stale, even if not yet evicted
+            if (entry != null && entry.index == index) {
+                hits.incrementAndGet();
+                return entry.response;
+            }
+        }
+        misses.incrementAndGet();
+
+        AvailableAttributeOptionsResponse response = loader.apply(index);
+        synchronized (entries) {
+            entries.put(key, new Entry(index, response));
+        }
+        return response;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (entries) {
+            if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT) {
+                entries.keySet().removeIf(key -> key.productId.equals(event.getId()));
+            } else {
+                entries.values().removeIf(entry -> entry.index.getProductTypeId().equals(event.getId()));
+            }
+        }
+        log.debug("Evicted cached available options for {}", event);
+    }
+
+    // Canonical form of a selection: option IDs in ascending order
+    private static long[] fingerprint(List<Long> selectedOptionIds) {
+        long[] sorted = new long[selectedOptionIds.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = selectedOptionIds.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private record Key(UUID productId, Long requestedAttributeId, long[] selection) {
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return productId.equals(other.productId)
+                    && Objects.equals(requestedAttributeId, other.requestedAttributeId)
+                    && Arrays.equals(selection, other.selection);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(productId, requestedAttributeId) + Arrays.hashCode(selection);
+        }
+    }
+
+    private record Entry(ProductConstraintIndex index, AvailableAttributeOptionsResponse response) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.carol.customshop.service.constraint;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Counts the complete configurations of a product and finds the options that can never be part of one.
+ * <p>
+ * A complete configuration picks one available option for every active attribute without completing any
+ * not-allowed combination. Attributes are split into independent groups (attributes linked, directly or not,
+ * by a combination), each group is enumerated on its own with a {@link ConfigurationState}, and the totals are
+ * multiplied. An option that appears in no complete configuration of its group is dead: offering it can only
+ * lead the customer into a dead end.
+ * <p>
+ * Enumeration is bounded by a number of steps; when the budget runs out the analysis is incomplete and reports
+ * neither a count nor dead options.
+ */
+public final class ConfigurationSpaceAnalysis {
+
+    private final boolean complete;
+    private final BigInteger validConfigurationCount;
+    private final Set<Long> deadOptionIds;
+
+    private ConfigurationSpaceAnalysis(boolean complete, BigInteger validConfigurationCount, Set<Long> deadOptionIds) {
+        this.complete = complete;
+        this.validConfigurationCount = validConfigurationCount;
+        this.deadOptionIds = deadOptionIds;
+    }
+
+    public static ConfigurationSpaceAnalysis analyze(ProductConstraintIndex index, long maxSteps) {
+        long[] budget = {maxSteps};
+        BigInteger total = BigInteger.ONE;
+        Set<Long> deadOptionIds = new TreeSet<>();
+
+        for (int[] group : independentGroups(index)) {
+            ConfigurationState state = new ConfigurationState(index);
+            long[] optionCounts = new long[index.optionCount()];
+            long count = enumerate(state, group, 0, optionCounts, budget);
+            if (count < 0) {
+                return new ConfigurationSpaceAnalysis(false, null, Set.of());
+            }
+
+            total = total.multiply(BigInteger.valueOf(count));
+            for (int attribute : group) {
+                for (int ordinal = index.firstOrdinal(attribute); ordinal < index.endOrdinal(attribute); ordinal++) {
+                    if (optionCounts[ordinal] == 0) {
+                        deadOptionIds.add(index.optionId(ordinal));
+                    }
+                }
+            }
+        }
+        return new ConfigurationSpaceAnalysis(true, total, Collections.unmodifiableSet(deadOptionIds));
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Number of complete configurations, or {@code null} when the analysis is incomplete.
+     */
+    public BigInteger getValidConfigurationCount() {
+        return validConfigurationCount;
+    }
+
+    public Set<Long> getDeadOptionIds() {
+        return deadOptionIds;
+    }
+
+    // Returns the number of completions of the group from the given depth, or -1 once the budget is exhausted
+    private static long enumerate(
+            ConfigurationState state, int[] group, int depth, long[] optionCounts, long[] budget
+    ) {
+        if (depth == group.length) {
+            return 1;
+        }
+        if (--budget[0] < 0) {
+            return -1;
+        }
+
+        long total = 0;
+        for (int ordinal : state.availableOptions(group[depth])) {
+            Long optionId = state.getIndex().optionId(ordinal);
+            state.select(optionId);
+            long count = enumerate(state, group, depth + 1, optionCounts, budget);
+            state.deselect(optionId);
+            if (count < 0) {
+                return -1;
+            }
+            optionCounts[ordinal] += count;
+            total += count;
+        }
+        return total;
+    }
+
+    // Active attributes grouped by the combinations linking them (union-find over attribute positions)
+    private static List<int[]> independentGroups(ProductConstraintIndex index) {
+        int[] parent = new int[index.attributeCount()];
+        for (int attribute = 0; attribute < parent.length; attribute++) {
+            parent[attribute] = attribute;
+        }
+        for (int combination = 0; combination < index.combinationCount(); combination++) {
+            int[] elements = index.combinationElements(combination);
+            for (int element : elements) {
+                parent[find(parent, index.attributeOf(element))] = find(parent, index.attributeOf(elements[0]));
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new TreeMap<>();
+        for (int attribute = 0; attribute < parent.length; attribute++) {
+            if (index.isAttributeActive(attribute)) {
+                groups.computeIfAbsent(find(parent, attribute), root -> new ArrayList<>()).add(attribute);
+            }
+        }
+        return groups.values().stream()
+                .map(group -> group.stream().mapToInt(Integer::intValue).toArray())
+                .toList();
+    }
+
+    private static int find(int[] parent, int attribute) {
+        while (parent[attribute] != attribute) {
+            parent[attribute] = parent[parent[attribute]];
+            attribute = parent[attribute];
+        }
+        return attribute;
+    }
+}
@@ -0,0 +1,95 @@
+package com.carol.customshop.service.constraint;
+
+import com.carol.customshop.event.CatalogChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Answers availability questions from a {@link MaterializedConfigurationSpace} when the product is small enough.
+ * <p>
+ * The first question asked against a compiled index schedules the materialization of its configuration space in
+ * the background, provided the number of selections to enumerate stays under
+ * {@code configurator.materialization.max-selections}. Until the space is ready, and for larger products, answers
+ * are evaluated on the fly by the index itself.
+ */
+@Slf4j
+@Service
+public class ConfigurationSpaceService {
+
+    private final long maxSelections;
+
+    private final Map<UUID, MaterializedConfigurationSpace> spaces = new ConcurrentHashMap<>();
+
+    // Index for which materialization was last scheduled (or ruled out) per product
+    private final Map<UUID, ProductConstraintIndex> considered = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "configuration-space-materializer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ConfigurationSpaceService(
+            @Value("${configurator.materialization.max-selections:200000}") long maxSelections
+    ) {
+        this.maxSelections = maxSelections;
+    }
+
+    public int[] availableOptions(ProductConstraintIndex index, int requestedAttribute, long[] selection) {
+        MaterializedConfigurationSpace space = spaces.get(index.getProductId());
+        if (space != null && space.getIndex() == index) {
+            return space.availableOptions(requestedAttribute, selection);
+        }
+        scheduleMaterialization(index);
+        return index.availableOptions(requestedAttribute, selection);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT) {
+            spaces.remove(event.getId());
+            considered.remove(event.getId());
+        } else {
+            spaces.values().removeIf(space -> space.getIndex().getProductTypeId().equals(event.getId()));
+            considered.values().removeIf(index -> index.getProductTypeId().equals(event.getId()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleMaterialization(ProductConstraintIndex index) {
+        ProductConstraintIndex previous = considered.put(index.getProductId(), index);
+        if (previous == index) {
+            return;
+        }
+
+        long selections = MaterializedConfigurationSpace.selectionCount(index);
+        if (selections > maxSelections) {
+            log.debug("Configuration space of product {} too large to materialize ({} selections)",
+                    index.getProductId(), selections);
+            return;
+        }
+
+        executor.execute(() -> {
+            MaterializedConfigurationSpace space = MaterializedConfigurationSpace.build(index);
+            // Only publish if no newer index was seen in the meantime
+            if (considered.get(index.getProductId()) == index) {
+                spaces.put(index.getProductId(), space);
+                log.debug("Materialized configuration space of product {}: {} nodes, {} distinct answers",
+                        index.getProductId(), space.nodeCount(), space.answerCount());
+            }
+        });
+    }
+}
@@ -0,0 +1,185 @@
+package com.carol.customshop.service.constraint;
+
+import java.util.*;
+
+/**
+ * Mutable configuration of one product, kept in sync with the availability of every option.
+ * <p>
+ * For each not-allowed combination the state tracks how many of its options are selected, and for each option
+ * how many combinations currently block it. A combination blocks an option when every other option of the
+ * combination is selected, so selecting or deselecting an option only revisits the combinations containing it.
+ * An option is available when its attribute is active, it is active and in stock, and nothing blocks it; the
+ * option currently selected for an attribute does not restrict the alternatives of that same attribute.
+ * <p>
+ * Not thread-safe; callers serialize access per configuration.
+ */
+public final class ConfigurationState {
+
+    private final ProductConstraintIndex index;
+    private final int[] selectedByAttribute;
+    private final int[] selectedCount;
+    private final boolean[] evaluable;
+    private final int[] blockCount;
+
+    public ConfigurationState(ProductConstraintIndex index) {
+        this.index = index;
+        this.selectedByAttribute = new int[index.attributeCount()];
+        this.selectedCount = new int[index.combinationCount()];
+        this.evaluable = new boolean[index.combinationCount()];
+        this.blockCount = new int[index.optionCount()];
+
+        Arrays.fill(selectedByAttribute, -1);
+
+        // A combination with two options of the same attribute can never be completed
+        for (int combination = 0; combination < evaluable.length; combination++) {
+            Set<Integer> attributes = new HashSet<>();
+            boolean distinct = true;
+            for (int element : index.combinationElements(combination)) {
+                distinct &= attributes.add(index.attributeOf(element));
+            }
+            evaluable[combination] = distinct;
+        }
+    }
+
+    /**
+     * Rebuilds a configuration on a (possibly newer) index, keeping the selected options that are still available.
+     */
+    public static ConfigurationState replay(ProductConstraintIndex index, List<Long> selectedOptionIds) {
+        ConfigurationState state = new ConfigurationState(index);
+        for (Long optionId : selectedOptionIds) {
+            int ordinal = index.ordinalOf(optionId);
+            if (ordinal >= 0 && state.isAvailable(ordinal)) {
+                state.select(optionId);
+            }
+        }
+        return state;
+    }
+
+    public ProductConstraintIndex getIndex() {
+        return index;
+    }
+
+    public List<Long> selectedOptionIds() {
+        List<Long> selected = new ArrayList<>();
+        for (int ordinal : selectedByAttribute) {
+            if (ordinal >= 0) {
+                selected.add(index.optionId(ordinal));
+            }
+        }
+        return selected;
+    }
+
+    public boolean isAvailable(int ordinal) {
+        return index.isAttributeActive(index.attributeOf(ordinal))
+                && !index.isUnavailable(ordinal)
+                && blockCount[ordinal] == 0;
+    }
+
+    public int[] availableOptions(int attribute) {
+        int first = index.firstOrdinal(attribute);
+        int end = index.endOrdinal(attribute);
+        int[] available = new int[end - first];
+        int count = 0;
+        for (int ordinal = first; ordinal < end; ordinal++) {
+            if (isAvailable(ordinal)) {
+                available[count++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(available, count);
+    }
+
+    /**
+     * Selects an option, replacing the option previously selected for its attribute.
+     *
+     * @return the ordinals of the options whose availability changed
+     */
+    public int[] select(Long optionId) {
+        int ordinal = requireOption(optionId);
+        if (!isAvailable(ordinal)) {
+            throw new IllegalArgumentException("Option is not available for the current selection: " + optionId);
+        }
+
+        int attribute = index.attributeOf(ordinal);
+        int previous = selectedByAttribute[attribute];
+        if (previous == ordinal) {
+            return new int[0];
+        }
+
+        Map<Integer, Boolean> touched = new LinkedHashMap<>();
+        if (previous >= 0) {
+            toggle(previous, false, touched);
+        }
+        toggle(ordinal, true, touched);
+        return changed(touched);
+    }
+
+    /**
+     * Deselects a currently selected option.
+     *
+     * @return the ordinals of the options whose availability changed
+     */
+    public int[] deselect(Long optionId) {
+        int ordinal = requireOption(optionId);
+        int attribute = index.attributeOf(ordinal);
+        if (selectedByAttribute[attribute] != ordinal) {
+            throw new IllegalArgumentException("Option is not selected: " + optionId);
+        }
+
+        Map<Integer, Boolean> touched = new LinkedHashMap<>();
+        toggle(ordinal, false, touched);
+        return changed(touched);
+    }
+
+    private int requireOption(Long optionId) {
+        int ordinal = index.ordinalOf(optionId);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Invalid option ID: " + optionId);
+        }
+        return ordinal;
+    }
+
+    // Re-evaluates only the combinations containing the (de)selected option
+    private void toggle(int ordinal, boolean selected, Map<Integer, Boolean> touched) {
+        int[] combinations = index.combinationsContaining(ordinal);
+        for (int combination : combinations) {
+            if (evaluable[combination]) {
+                applyBlocks(combination, -1, touched);
+            }
+        }
+
+        selectedByAttribute[index.attributeOf(ordinal)] = selected ? ordinal : -1;
+
+        for (int combination : combinations) {
+            if (evaluable[combination]) {
+                selectedCount[combination] += selected ? 1 : -1;
+                applyBlocks(combination, 1, touched);
+            }
+        }
+    }
+
+    private void applyBlocks(int combination, int delta, Map<Integer, Boolean> touched) {
+        int[] elements = index.combinationElements(combination);
+        int missing = elements.length - selectedCount[combination];
+        if (missing > 1) {
+            return;
+        }
+        for (int element : elements) {
+            // Fully selected: every element is blocked; one element missing: only that one is
+            if (missing == 0 || !isSelected(element)) {
+                touched.putIfAbsent(element, isAvailable(element));
+                blockCount[element] += delta;
+            }
+        }
+    }
+
+    private boolean isSelected(int ordinal) {
+        return selectedByAttribute[index.attributeOf(ordinal)] == ordinal;
+    }
+
+    private int[] changed(Map<Integer, Boolean> touched) {
+        return touched.entrySet().stream()
+                .filter(entry -> entry.getValue() != isAvailable(entry.getKey()))
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+}
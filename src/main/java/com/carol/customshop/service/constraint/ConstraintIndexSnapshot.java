@@ -0,0 +1,209 @@
+package com.carol.customshop.service.constraint;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file holding compiled {@link ProductConstraintIndex}es, stamped with the catalog version they were
+ * compiled from.
+ * <p>
+ * Layout (big-endian): magic {@code "CSIX"}, format version, catalog version, CRC-32 of the body, index count,
+ * then the body with one record per index: product and product type IDs, attributes (ID, name, end ordinal,
+ * deactivated flag), options (ID, name), the unavailable bitset and the not-allowed combinations as ordinals.
+ * Inverted indexes are not stored; they are rebuilt on load. Files are written to a temporary file and moved
+ * into place, and read through a memory mapping.
+ */
+public final class ConstraintIndexSnapshot {
+
+    private static final int MAGIC = 0x43534958;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+    private final long catalogVersion;
+    private final List<ProductConstraintIndex> indexes;
+
+    public ConstraintIndexSnapshot(long catalogVersion, List<ProductConstraintIndex> indexes) {
+        this.catalogVersion = catalogVersion;
+        this.indexes = indexes;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public List<ProductConstraintIndex> getIndexes() {
+        return indexes;
+    }
+
+    public void write(Path path) throws IOException {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        try (DataOutputStream body = new DataOutputStream(bodyBytes)) {
+            for (ProductConstraintIndex index : indexes) {
+                writeIndex(body, index);
+            }
+        }
+        byte[] bodyArray = bodyBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bodyArray);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putLong(catalogVersion)
+                .putLong(crc.getValue())
+                .putInt(indexes.size())
+                .flip();
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.write(new ByteBuffer[] {header, ByteBuffer.wrap(bodyArray)});
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot; fails with {@link IOException} when the file is not a snapshot of this format or is corrupt.
+     */
+    public static ConstraintIndexSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a constraint index snapshot: " + path);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported constraint index snapshot format " + formatVersion + ": " + path);
+            }
+            long catalogVersion = buffer.getLong();
+            long checksum = buffer.getLong();
+            int count = buffer.getInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException("Corrupt constraint index snapshot: " + path);
+            }
+
+            List<ProductConstraintIndex> indexes = new ArrayList<>(count);
+            try {
+                for (int i = 0; i < count; i++) {
+                    indexes.add(readIndex(buffer));
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt constraint index snapshot: " + path, e);
+            }
+            return new ConstraintIndexSnapshot(catalogVersion, indexes);
+        }
+    }
+
+    private static void writeIndex(DataOutputStream out, ProductConstraintIndex index) throws IOException {
+        writeUuid(out, index.getProductId());
+        writeUuid(out, index.getProductTypeId());
+
+        out.writeInt(index.attributeCount());
+        for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+            out.writeLong(index.attributeId(attribute));
+            writeString(out, index.attributeName(attribute));
+            out.writeInt(index.endOrdinal(attribute));
+            out.writeBoolean(!index.isAttributeActive(attribute));
+        }
+
+        out.writeInt(index.optionCount());
+        for (int ordinal = 0; ordinal < index.optionCount(); ordinal++) {
+            out.writeLong(index.optionId(ordinal));
+            writeString(out, index.optionName(ordinal));
+            out.writeBoolean(index.isUnavailable(ordinal));
+        }
+
+        out.writeInt(index.combinationCount());
+        for (int combination = 0; combination < index.combinationCount(); combination++) {
+            int[] elements = index.combinationElements(combination);
+            out.writeInt(elements.length);
+            for (int element : elements) {
+                out.writeInt(element);
+            }
+        }
+    }
+
+    private static ProductConstraintIndex readIndex(ByteBuffer in) {
+        UUID productId = readUuid(in);
+        UUID productTypeId = readUuid(in);
+
+        int attributeCount = in.getInt();
+        long[] attributeIds = new long[attributeCount];
+        String[] attributeNames = new String[attributeCount];
+        int[] attributeEndOrdinal = new int[attributeCount];
+        boolean[] attributeDeactivated = new boolean[attributeCount];
+        for (int attribute = 0; attribute < attributeCount; attribute++) {
+            attributeIds[attribute] = in.getLong();
+            attributeNames[attribute] = readString(in);
+            attributeEndOrdinal[attribute] = in.getInt();
+            attributeDeactivated[attribute] = in.get() != 0;
+        }
+
+        int optionCount = in.getInt();
+        long[] optionIds = new long[optionCount];
+        String[] optionNames = new String[optionCount];
+        long[] unavailable = new long[(optionCount + 63) >>> 6];
+        for (int ordinal = 0; ordinal < optionCount; ordinal++) {
+            optionIds[ordinal] = in.getLong();
+            optionNames[ordinal] = readString(in);
+            if (in.get() != 0) {
+                unavailable[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+
+        int[][] combinationOrdinals = new int[in.getInt()][];
+        for (int combination = 0; combination < combinationOrdinals.length; combination++) {
+            combinationOrdinals[combination] = new int[in.getInt()];
+            for (int element = 0; element < combinationOrdinals[combination].length; element++) {
+                combinationOrdinals[combination][element] = in.getInt();
+            }
+        }
+
+        return ProductConstraintIndex.restore(productId, productTypeId, attributeIds, attributeNames,
+                attributeEndOrdinal, attributeDeactivated, optionIds, optionNames, unavailable, combinationOrdinals);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    // Names may be null; -1 marks a missing value
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.carol.customshop.service.constraint;
+
+import com.carol.customshop.service.CatalogVersionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Persists the compiled constraint indexes across restarts.
+ * <p>
+ * On shutdown, the indexes still matching the current catalog version are written to
+ * {@code configurator.snapshot.path}; on startup, that file is loaded and its indexes are served right away if the
+ * catalog version has not moved in between. A missing, outdated or unreadable snapshot is simply ignored:
+ * indexes are then compiled on demand as usual. Leaving the path empty disables snapshots.
+ */
+@Slf4j
+@Component
+public class ConstraintIndexSnapshotManager {
+
+    private final ProductConstraintIndexService productConstraintIndexService;
+    private final CatalogVersionService catalogVersionService;
+    private final String snapshotPath;
+
+    public ConstraintIndexSnapshotManager(
+            ProductConstraintIndexService productConstraintIndexService,
+            CatalogVersionService catalogVersionService,
+            @Value("${configurator.snapshot.path:}") String snapshotPath
+    ) {
+        this.productConstraintIndexService = productConstraintIndexService;
+        this.catalogVersionService = catalogVersionService;
+        this.snapshotPath = snapshotPath;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return;
+        }
+        try {
+            ConstraintIndexSnapshot snapshot = ConstraintIndexSnapshot.read(Path.of(snapshotPath));
+            if (productConstraintIndexService.preload(snapshot)) {
+                log.info("Loaded {} constraint indexes from snapshot {} (catalog version {})",
+                        snapshot.getIndexes().size(), snapshotPath, snapshot.getCatalogVersion());
+            } else {
+                log.info("Ignoring constraint index snapshot {}: catalog changed since version {}",
+                        snapshotPath, snapshot.getCatalogVersion());
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable constraint index snapshot {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        try {
+            ConstraintIndexSnapshot snapshot =
+                    productConstraintIndexService.snapshot(catalogVersionService.getCurrentVersion());
+            snapshot.write(Path.of(snapshotPath));
+            log.info("Saved {} constraint indexes to snapshot {} (catalog version {})",
+                    snapshot.getIndexes().size(), snapshotPath, snapshot.getCatalogVersion());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save constraint index snapshot {}", snapshotPath, e);
+        }
+    }
+}
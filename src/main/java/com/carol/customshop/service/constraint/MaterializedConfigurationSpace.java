@@ -0,0 +1,179 @@
+package com.carol.customshop.service.constraint;
+
+import java.util.*;
+
+/**
+ * Precomputed availability answers for every possible selection of a product.
+ * <p>
+ * For each requested attribute, the answers are stored in a decision graph with one level per other attribute:
+ * a node branches on the option selected for its attribute (or on no option at all) and leaves hold the
+ * available options. Identical subgraphs and identical answers are shared, and a node whose branches all lead
+ * to the same place is skipped, so attributes that never interact with the requested one cost nothing. An
+ * availability question is then answered by walking at most one node per attribute.
+ * <p>
+ * The graph is built by enumerating every selection, so it is only meant for small configuration spaces; see
+ * {@link #selectionCount(ProductConstraintIndex)}.
+ */
+public final class MaterializedConfigurationSpace {
+
+    private final ProductConstraintIndex index;
+
+    // Root reference per requested attribute; references >= 0 are nodes, negative ones are ~answer
+    private final int[] roots;
+    private final int[] nodeAttribute;
+    private final int[][] nodeChildren;
+    private final int[][] answers;
+
+    private MaterializedConfigurationSpace(
+            ProductConstraintIndex index, int[] roots, int[] nodeAttribute, int[][] nodeChildren, int[][] answers
+    ) {
+        this.index = index;
+        this.roots = roots;
+        this.nodeAttribute = nodeAttribute;
+        this.nodeChildren = nodeChildren;
+        this.answers = answers;
+    }
+
+    /**
+     * Number of selections to enumerate, over all requested attributes, saturating at {@link Long#MAX_VALUE}.
+     */
+    public static long selectionCount(ProductConstraintIndex index) {
+        long total = 0;
+        for (int requested = 0; requested < index.attributeCount(); requested++) {
+            long selections = 1;
+            for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+                if (attribute != requested) {
+                    int branches = index.endOrdinal(attribute) - index.firstOrdinal(attribute) + 1;
+                    selections = multiplySaturated(selections, branches);
+                }
+            }
+            total = total + selections < 0 ? Long.MAX_VALUE : total + selections;
+        }
+        return total;
+    }
+
+    public static MaterializedConfigurationSpace build(ProductConstraintIndex index) {
+        return new Builder(index).build();
+    }
+
+    public ProductConstraintIndex getIndex() {
+        return index;
+    }
+
+    public int nodeCount() {
+        return nodeChildren.length;
+    }
+
+    public int answerCount() {
+        return answers.length;
+    }
+
+    /**
+     * Same answer as {@link ProductConstraintIndex#availableOptions(int, long[])}, read from the graph.
+     */
+    public int[] availableOptions(int requestedAttribute, long[] selection) {
+        int reference = roots[requestedAttribute];
+        while (reference >= 0) {
+            reference = nodeChildren[reference][selectedBranch(nodeAttribute[reference], selection)];
+        }
+        return answers[~reference].clone();
+    }
+
+    // Branch 0 is "nothing selected", branch k is the k-th option of the attribute
+    private int selectedBranch(int attribute, long[] selection) {
+        for (int ordinal = index.firstOrdinal(attribute); ordinal < index.endOrdinal(attribute); ordinal++) {
+            if ((selection[ordinal >>> 6] & (1L << ordinal)) != 0) {
+                return ordinal - index.firstOrdinal(attribute) + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static long multiplySaturated(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        return high != 0 || low < 0 ? Long.MAX_VALUE : low;
+    }
+
+    private static final class Builder {
+
+        private final ProductConstraintIndex index;
+        private final long[] selection;
+
+        private final List<Integer> nodeAttribute = new ArrayList<>();
+        private final List<int[]> nodeChildren = new ArrayList<>();
+        private final Map<IntArrayKey, Integer> uniqueNodes = new HashMap<>();
+        private final List<int[]> answers = new ArrayList<>();
+        private final Map<IntArrayKey, Integer> uniqueAnswers = new HashMap<>();
+
+        private Builder(ProductConstraintIndex index) {
+            this.index = index;
+            this.selection = new long[(index.optionCount() + 63) >>> 6];
+        }
+
+        private MaterializedConfigurationSpace build() {
+            int[] roots = new int[index.attributeCount()];
+            for (int requested = 0; requested < roots.length; requested++) {
+                roots[requested] = branch(requested, 0);
+            }
+            return new MaterializedConfigurationSpace(
+                    index,
+                    roots,
+                    nodeAttribute.stream().mapToInt(Integer::intValue).toArray(),
+                    nodeChildren.toArray(new int[0][]),
+                    answers.toArray(new int[0][])
+            );
+        }
+
+        // Returns the reference of the subgraph deciding the requested attribute from the given level down
+        private int branch(int requested, int level) {
+            int attribute = level == requested ? level + 1 : level;
+            if (attribute >= index.attributeCount()) {
+                return answer(index.availableOptions(requested, selection));
+            }
+
+            int first = index.firstOrdinal(attribute);
+            int end = index.endOrdinal(attribute);
+            int[] children = new int[end - first + 1];
+            children[0] = branch(requested, attribute + 1);
+            boolean sameEverywhere = true;
+            for (int ordinal = first; ordinal < end; ordinal++) {
+                selection[ordinal >>> 6] |= 1L << ordinal;
+                children[ordinal - first + 1] = branch(requested, attribute + 1);
+                selection[ordinal >>> 6] &= ~(1L << ordinal);
+                sameEverywhere &= children[ordinal - first + 1] == children[0];
+            }
+
+            if (sameEverywhere) {
+                return children[0];
+            }
+            int[] key = Arrays.copyOf(children, children.length + 1);
+            key[children.length] = attribute;
+            return uniqueNodes.computeIfAbsent(new IntArrayKey(key), unused -> {
+                nodeAttribute.add(attribute);
+                nodeChildren.add(children);
+                return nodeChildren.size() - 1;
+            });
+        }
+
+        private int answer(int[] available) {
+            return ~uniqueAnswers.computeIfAbsent(new IntArrayKey(available), unused -> {
+                answers.add(available);
+                return answers.size() - 1;
+            });
+        }
+    }
+
+    private record IntArrayKey(int[] values) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntArrayKey other && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+}
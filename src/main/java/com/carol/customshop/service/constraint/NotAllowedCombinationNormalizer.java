@@ -0,0 +1,119 @@
+package com.carol.customshop.service.constraint;
+
+import java.util.*;
+
+/**
+ * Keeps a set of not-allowed combinations minimal as rules are added.
+ * <p>
+ * Combinations are compared as sets of option IDs. An incoming combination is dropped when it repeats a
+ * combination already known (or given earlier in the same batch), and when it is a superset of one: if
+ * {A, B} is forbidden, no valid selection can ever contain {A, B, C} either. Existing combinations made redundant
+ * by a smaller incoming one are reported as superseded.
+ */
+public final class NotAllowedCombinationNormalizer {
+
+    public enum Reason {
+        DUPLICATE,
+        SUBSUMED
+    }
+
+    /**
+     * An incoming combination that was not kept, by its position in the incoming list.
+     */
+    public record PrunedCombination(int position, Set<Long> optionIds, Reason reason) {
+    }
+
+    /**
+     * @param kept       positions of the incoming combinations to persist, in incoming order
+     * @param pruned     incoming combinations left out, in incoming order
+     * @param superseded keys of the existing combinations that a kept combination makes redundant
+     */
+    public record Result<K>(List<Integer> kept, List<PrunedCombination> pruned, Set<K> superseded) {
+    }
+
+    private NotAllowedCombinationNormalizer() {
+    }
+
+    /**
+     * @param existing combinations already in force, by key (for instance the combination ID)
+     * @param incoming combinations about to be added
+     */
+    public static <K> Result<K> normalize(Map<K, Set<Long>> existing, List<Set<Long>> incoming) {
+        List<Set<Long>> accepted = new ArrayList<>();
+        Map<Long, List<Integer>> acceptedByOption = new HashMap<>();
+        existing.values().forEach(combination -> accept(new TreeSet<>(combination), accepted, acceptedByOption));
+
+        // Smaller combinations first, so that a superset given in the same batch is always seen after its subset
+        List<Integer> order = new ArrayList<>();
+        for (int position = 0; position < incoming.size(); position++) {
+            order.add(position);
+        }
+        order.sort(Comparator.comparingInt(position -> incoming.get(position).size()));
+
+        Set<Integer> kept = new TreeSet<>();
+        Map<Integer, PrunedCombination> pruned = new TreeMap<>();
+        List<Set<Long>> keptCombinations = new ArrayList<>();
+        for (int position : order) {
+            Set<Long> combination = new TreeSet<>(incoming.get(position));
+            Reason reason = redundancy(combination, accepted, acceptedByOption);
+            if (reason != null) {
+                pruned.put(position, new PrunedCombination(position, combination, reason));
+            } else {
+                kept.add(position);
+                keptCombinations.add(combination);
+                accept(combination, accepted, acceptedByOption);
+            }
+        }
+
+        // Kept combinations repeat none of the existing ones, so only strict supersets are found
+        return new Result<>(new ArrayList<>(kept), new ArrayList<>(pruned.values()),
+                superseded(existing, keptCombinations));
+    }
+
+    /**
+     * Keys of the combinations that forbid nothing the added ones do not already forbid: those equal to, or a
+     * superset of, an added combination. Used as well for combinations kept apart from {@code existing}, such as
+     * the product-level combinations of a type's products.
+     */
+    public static <K> Set<K> superseded(Map<K, Set<Long>> combinations, Collection<Set<Long>> added) {
+        Set<K> superseded = new LinkedHashSet<>();
+        combinations.forEach((key, combination) -> {
+            for (Set<Long> addedCombination : added) {
+                if (combination.containsAll(addedCombination)) {
+                    superseded.add(key);
+                    break;
+                }
+            }
+        });
+        return superseded;
+    }
+
+    // Finds an accepted combination equal to, or contained in, the given one by counting shared options
+    private static Reason redundancy(
+            Set<Long> combination, List<Set<Long>> accepted, Map<Long, List<Integer>> acceptedByOption
+    ) {
+        Map<Integer, Integer> shared = new HashMap<>();
+        Reason reason = null;
+        for (Long optionId : combination) {
+            for (int candidate : acceptedByOption.getOrDefault(optionId, List.of())) {
+                int count = shared.merge(candidate, 1, Integer::sum);
+                if (count == accepted.get(candidate).size()) {
+                    if (count == combination.size()) {
+                        return Reason.DUPLICATE;
+                    }
+                    reason = Reason.SUBSUMED;
+                }
+            }
+        }
+        return reason;
+    }
+
+    private static void accept(
+            Set<Long> combination, List<Set<Long>> accepted, Map<Long, List<Integer>> acceptedByOption
+    ) {
+        accepted.add(combination);
+        for (Long optionId : combination) {
+            acceptedByOption.computeIfAbsent(optionId, unused -> new ArrayList<>()).add(accepted.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package com.carol.customshop.service.constraint;
+
+import com.carol.customshop.entity.*;
+
+import java.util.*;
+
+/**
+ * Immutable, compiled view of everything that decides which options of a product can be chosen.
+ * <p>
+ * Every option of the product type gets a dense ordinal (options of the same attribute are contiguous),
+ * selections and not-allowed combinations are stored as bitsets over those ordinals, and the product
+ * overrides are folded into a single "unavailable" bitset. An inverted index from each option to the
+ * combinations containing it restricts evaluation to the combinations the current selection and the requested
+ * attribute can complete, so answering an availability question never touches the database nor unrelated rules.
+ */
+public final class ProductConstraintIndex {
+
+    private final UUID productId;
+    private final UUID productTypeId;
+
+    // Attributes, indexed by attribute position
+    private final long[] attributeIds;
+    private final String[] attributeNames;
+    private final int[] attributeFirstOrdinal;
+    private final int[] attributeEndOrdinal;
+    private final boolean[] attributeDeactivated;
+    private final Map<Long, Integer> attributeIndexById;
+
+    // Options, indexed by ordinal
+    private final long[] optionIds;
+    private final String[] optionNames;
+    private final int[] optionAttribute;
+    private final Map<Long, Integer> ordinalByOptionId;
+
+    // Deactivated or out-of-stock options, plus options forbidden on their own
+    private final long[] unavailable;
+
+    // Active not-allowed combinations (product type and product specific), as bitsets and sorted ordinals
+    private final long[][] combinations;
+    private final int[][] combinationOrdinals;
+
+    // Inverted index: option ordinal -> combinations containing that (attribute, option) pair
+    private final int[][] combinationsByOption;
+    private final int[] attributePostingCount;
+
+    private ProductConstraintIndex(
+            UUID productId,
+            UUID productTypeId,
+            List<ProductTypeAttribute> attributes,
+            Set<Long> deactivatedAttributes,
+            Set<Long> unavailableOptions,
+            List<Set<Long>> forbiddenCombinations
+    ) {
+        this.productId = productId;
+        this.productTypeId = productTypeId;
+
+        int attributeCount = attributes.size();
+        int optionCount = attributes.stream().mapToInt(attribute -> attribute.getOptions().size()).sum();
+
+        this.attributeIds = new long[attributeCount];
+        this.attributeNames = new String[attributeCount];
+        this.attributeFirstOrdinal = new int[attributeCount];
+        this.attributeEndOrdinal = new int[attributeCount];
+        this.attributeDeactivated = new boolean[attributeCount];
+        this.attributeIndexById = new HashMap<>();
+
+        this.optionIds = new long[optionCount];
+        this.optionNames = new String[optionCount];
+        this.optionAttribute = new int[optionCount];
+        this.ordinalByOptionId = new HashMap<>();
+
+        int ordinal = 0;
+        for (int index = 0; index < attributeCount; index++) {
+            ProductTypeAttribute attribute = attributes.get(index);
+            attributeIds[index] = attribute.getId();
+            attributeNames[index] = attribute.getAttributeName();
+            attributeDeactivated[index] = deactivatedAttributes.contains(attribute.getId());
+            attributeIndexById.put(attribute.getId(), index);
+
+            attributeFirstOrdinal[index] = ordinal;
+            for (ProductTypeAttributeOption option : attribute.getOptions()) {
+                optionIds[ordinal] = option.getId();
+                optionNames[ordinal] = option.getName();
+                optionAttribute[ordinal] = index;
+                ordinalByOptionId.put(option.getId(), ordinal);
+                ordinal++;
+            }
+            attributeEndOrdinal[index] = ordinal;
+        }
+
+        this.unavailable = toBitSet(unavailableOptions);
+
+        // Combinations mentioning options outside the product type can never be completed, a combination made of
+        // a single option simply makes that option unavailable, and a combination given twice is evaluated once
+        List<int[]> compiled = new ArrayList<>();
+        for (Set<Long> combination : new LinkedHashSet<>(forbiddenCombinations)) {
+            if (!ordinalByOptionId.keySet().containsAll(combination) || combination.isEmpty()) {
+                continue;
+            }
+            int[] ordinals = combination.stream().mapToInt(ordinalByOptionId::get).sorted().toArray();
+            if (ordinals.length == 1) {
+                unavailable[ordinals[0] >>> 6] |= 1L << ordinals[0];
+            } else {
+                compiled.add(ordinals);
+            }
+        }
+
+        this.combinationOrdinals = compiled.toArray(new int[0][]);
+        this.combinations = toBitSets(combinationOrdinals, optionCount);
+        this.combinationsByOption = postings(combinationOrdinals, optionCount);
+        this.attributePostingCount = postingCounts(combinationsByOption, optionAttribute, attributeCount);
+    }
+
+    // Same attributes and options as the source, with more unavailable options and fewer combinations
+    private ProductConstraintIndex(ProductConstraintIndex source, long[] unavailable, int[][] combinationOrdinals) {
+        this.productId = source.productId;
+        this.productTypeId = source.productTypeId;
+        this.attributeIds = source.attributeIds;
+        this.attributeNames = source.attributeNames;
+        this.attributeFirstOrdinal = source.attributeFirstOrdinal;
+        this.attributeEndOrdinal = source.attributeEndOrdinal;
+        this.attributeDeactivated = source.attributeDeactivated;
+        this.attributeIndexById = source.attributeIndexById;
+        this.optionIds = source.optionIds;
+        this.optionNames = source.optionNames;
+        this.optionAttribute = source.optionAttribute;
+        this.ordinalByOptionId = source.ordinalByOptionId;
+
+        this.unavailable = unavailable;
+        this.combinationOrdinals = combinationOrdinals;
+        this.combinations = toBitSets(combinationOrdinals, optionIds.length);
+        this.combinationsByOption = postings(combinationOrdinals, optionIds.length);
+        this.attributePostingCount = postingCounts(combinationsByOption, optionAttribute, attributeIds.length);
+    }
+
+    // Rebuilds an index from its stored form (see ConstraintIndexSnapshot)
+    private ProductConstraintIndex(
+            UUID productId,
+            UUID productTypeId,
+            long[] attributeIds,
+            String[] attributeNames,
+            int[] attributeEndOrdinal,
+            boolean[] attributeDeactivated,
+            long[] optionIds,
+            String[] optionNames,
+            long[] unavailable,
+            int[][] combinationOrdinals
+    ) {
+        this.productId = productId;
+        this.productTypeId = productTypeId;
+        this.attributeIds = attributeIds;
+        this.attributeNames = attributeNames;
+        this.attributeEndOrdinal = attributeEndOrdinal;
+        this.attributeDeactivated = attributeDeactivated;
+        this.optionIds = optionIds;
+        this.optionNames = optionNames;
+        this.unavailable = unavailable;
+        this.combinationOrdinals = combinationOrdinals;
+
+        this.attributeFirstOrdinal = new int[attributeIds.length];
+        this.attributeIndexById = new HashMap<>();
+        this.optionAttribute = new int[optionIds.length];
+        this.ordinalByOptionId = new HashMap<>();
+        for (int index = 0; index < attributeIds.length; index++) {
+            attributeFirstOrdinal[index] = index == 0 ? 0 : attributeEndOrdinal[index - 1];
+            attributeIndexById.put(attributeIds[index], index);
+            for (int ordinal = attributeFirstOrdinal[index]; ordinal < attributeEndOrdinal[index]; ordinal++) {
+                optionAttribute[ordinal] = index;
+                ordinalByOptionId.put(optionIds[ordinal], ordinal);
+            }
+        }
+
+        this.combinations = toBitSets(combinationOrdinals, optionIds.length);
+        this.combinationsByOption = postings(combinationOrdinals, optionIds.length);
+        this.attributePostingCount = postingCounts(combinationsByOption, optionAttribute, attributeIds.length);
+    }
+
+    static ProductConstraintIndex restore(
+            UUID productId,
+            UUID productTypeId,
+            long[] attributeIds,
+            String[] attributeNames,
+            int[] attributeEndOrdinal,
+            boolean[] attributeDeactivated,
+            long[] optionIds,
+            String[] optionNames,
+            long[] unavailable,
+            int[][] combinationOrdinals
+    ) {
+        return new ProductConstraintIndex(productId, productTypeId, attributeIds, attributeNames,
+                attributeEndOrdinal, attributeDeactivated, optionIds, optionNames, unavailable, combinationOrdinals);
+    }
+
+    /**
+     * Compiles the index of a product from its product type, its own not-allowed combinations and its overrides.
+     * Type-level combinations deactivated for the product are left out.
+     */
+    public static ProductConstraintIndex compile(
+            Product product,
+            List<ProductNotAllowedCombination> productCombinations,
+            Set<Long> deactivatedAttributes,
+            Set<Long> deactivatedOptions,
+            Set<Long> outOfStockOptions,
+            Set<Long> deactivatedCombinations
+    ) {
+        ProductType productType = product.getProductType();
+
+        List<Set<Long>> forbiddenCombinations = new ArrayList<>();
+        for (NotAllowedCombination combination : productType.getNotAllowedCombinations()) {
+            if (deactivatedCombinations.contains(combination.getId())) {
+                continue;
+            }
+            Set<Long> optionIds = new HashSet<>();
+            combination.getOptions().forEach(element -> optionIds.add(element.getAttributeOption().getId()));
+            forbiddenCombinations.add(optionIds);
+        }
+        for (ProductNotAllowedCombination combination : productCombinations) {
+            Set<Long> optionIds = new HashSet<>();
+            combination.getOptions().forEach(element -> optionIds.add(element.getOption().getId()));
+            forbiddenCombinations.add(optionIds);
+        }
+
+        Set<Long> unavailableOptions = new HashSet<>(deactivatedOptions);
+        unavailableOptions.addAll(outOfStockOptions);
+
+        return new ProductConstraintIndex(
+                product.getId(),
+                productType.getId(),
+                productType.getAttributes(),
+                deactivatedAttributes,
+                unavailableOptions,
+                forbiddenCombinations
+        );
+    }
+
+    /**
+     * Compiles the index of a product type on its own: its not-allowed combinations, without any product override.
+     */
+    public static ProductConstraintIndex compile(ProductType productType) {
+        Product product = new Product();
+        product.setProductType(productType);
+        return compile(product, List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+    }
+
+    /**
+     * Returns an index where the given options are unavailable and every combination containing one of them is
+     * left out. Combinations of options that are merely unavailable (deactivated or out of stock) are kept: a
+     * selection may still hold such an option, e.g. from a cart, and it must keep excluding its partners.
+     */
+    public ProductConstraintIndex withoutDeadOptions(Set<Long> deadOptionIds) {
+        long[] pruned = unavailable.clone();
+        long[] dead = toBitSet(deadOptionIds);
+        for (int word = 0; word < pruned.length; word++) {
+            pruned[word] |= dead[word];
+        }
+
+        List<int[]> live = new ArrayList<>();
+        for (int[] ordinals : combinationOrdinals) {
+            boolean withoutDeadOption = true;
+            for (int element : ordinals) {
+                withoutDeadOption &= (dead[element >>> 6] & (1L << element)) == 0;
+            }
+            if (withoutDeadOption) {
+                live.add(ordinals);
+            }
+        }
+        return new ProductConstraintIndex(this, pruned, live.toArray(new int[0][]));
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public UUID getProductTypeId() {
+        return productTypeId;
+    }
+
+    /**
+     * Returns the position of the attribute in this index, or -1 when it does not belong to the product type.
+     */
+    public int attributeIndexOf(Long attributeId) {
+        Integer index = attributeIndexById.get(attributeId);
+        return index != null ? index : -1;
+    }
+
+    public int attributeCount() {
+        return attributeIds.length;
+    }
+
+    public boolean isAttributeActive(int attribute) {
+        return !attributeDeactivated[attribute];
+    }
+
+    public long attributeId(int attribute) {
+        return attributeIds[attribute];
+    }
+
+    public String attributeName(int attribute) {
+        return attributeNames[attribute];
+    }
+
+    public long optionId(int ordinal) {
+        return optionIds[ordinal];
+    }
+
+    public String optionName(int ordinal) {
+        return optionNames[ordinal];
+    }
+
+    int optionCount() {
+        return optionIds.length;
+    }
+
+    int ordinalOf(Long optionId) {
+        Integer ordinal = ordinalByOptionId.get(optionId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public int attributeOf(int ordinal) {
+        return optionAttribute[ordinal];
+    }
+
+    int firstOrdinal(int attribute) {
+        return attributeFirstOrdinal[attribute];
+    }
+
+    int endOrdinal(int attribute) {
+        return attributeEndOrdinal[attribute];
+    }
+
+    boolean isUnavailable(int ordinal) {
+        return (unavailable[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    int combinationCount() {
+        return combinationOrdinals.length;
+    }
+
+    int[] combinationElements(int combination) {
+        return combinationOrdinals[combination];
+    }
+
+    int[] combinationsContaining(int ordinal) {
+        return combinationsByOption[ordinal];
+    }
+
+    /**
+     * Validates a selection that is not tied to a requested attribute and encodes it as a bitset.
+     */
+    public long[] encodeSelection(List<Long> selectedOptionIds) {
+        return encodeSelection(selectedOptionIds, -1);
+    }
+
+    /**
+     * Returns a copy of the selection without the option selected for the given attribute, if any.
+     */
+    public long[] withoutAttribute(long[] selection, int attribute) {
+        long[] result = selection.clone();
+        for (int ordinal = attributeFirstOrdinal[attribute]; ordinal < attributeEndOrdinal[attribute]; ordinal++) {
+            result[ordinal >>> 6] &= ~(1L << ordinal);
+        }
+        return result;
+    }
+
+    /**
+     * Validates a selection against the requested attribute and encodes it as a bitset.
+     * At most one option per attribute may be selected and none of them may belong to the requested attribute.
+     */
+    public long[] encodeSelection(List<Long> selectedOptionIds, int requestedAttribute) {
+        long[] selection = new long[words(optionIds.length)];
+        boolean[] attributeSelected = new boolean[attributeIds.length];
+
+        for (Long optionId : selectedOptionIds) {
+            Integer ordinal = ordinalByOptionId.get(optionId);
+            if (ordinal == null) {
+                throw new IllegalArgumentException("Invalid option ID: " + optionId);
+            }
+
+            int attribute = optionAttribute[ordinal];
+
+            // Ensure that each attribute has only one selected option
+            if (attributeSelected[attribute]) {
+                throw new IllegalArgumentException(
+                        "Multiple options selected for the same attribute: " + attributeIds[attribute]);
+            }
+
+            // Ensure no selected option belongs to the requested attribute
+            if (attribute == requestedAttribute) {
+                throw new IllegalArgumentException("Selected option belongs to the requested attribute: " + optionId);
+            }
+
+            attributeSelected[attribute] = true;
+            selection[ordinal >>> 6] |= 1L << ordinal;
+        }
+        return selection;
+    }
+
+    /**
+     * Returns the ordinals of the options of the requested attribute that are active, in stock and
+     * would not complete a not-allowed combination together with the given selection.
+     */
+    public int[] availableOptions(int requestedAttribute, long[] selection) {
+        if (attributeDeactivated[requestedAttribute]) {
+            return new int[0];
+        }
+
+        long[] blocked = unavailable.clone();
+        int first = attributeFirstOrdinal[requestedAttribute];
+        int end = attributeEndOrdinal[requestedAttribute];
+
+        // Only combinations containing both a selected option and an option of the requested attribute can be
+        // completed, so walk whichever side of the inverted index has the shorter posting lists
+        int selectionPostingCount = 0;
+        for (int word = 0; word < selection.length; word++) {
+            for (long bits = selection[word]; bits != 0; bits &= bits - 1) {
+                selectionPostingCount += combinationsByOption[(word << 6) + Long.numberOfTrailingZeros(bits)].length;
+            }
+        }
+
+        if (attributePostingCount[requestedAttribute] <= selectionPostingCount) {
+            for (int ordinal = first; ordinal < end; ordinal++) {
+                for (int combination : combinationsByOption[ordinal]) {
+                    blockIfCompleted(combination, requestedAttribute, selection, blocked);
+                }
+            }
+        } else {
+            for (int word = 0; word < selection.length; word++) {
+                for (long bits = selection[word]; bits != 0; bits &= bits - 1) {
+                    int selected = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    for (int combination : combinationsByOption[selected]) {
+                        // Visit each combination once: from its lowest option outside the requested attribute
+                        if (anchorOf(combination, requestedAttribute) == selected) {
+                            blockIfCompleted(combination, requestedAttribute, selection, blocked);
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] available = new int[end - first];
+        int count = 0;
+        for (int ordinal = first; ordinal < end; ordinal++) {
+            if ((blocked[ordinal >>> 6] & (1L << ordinal)) == 0) {
+                available[count++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(available, count);
+    }
+
+    /**
+     * A combination forbids an option of the requested attribute when that option is the only element
+     * of the combination not yet selected.
+     */
+    private void blockIfCompleted(int combination, int requestedAttribute, long[] selection, long[] blocked) {
+        long[] elements = combinations[combination];
+        int missing = -1;
+        for (int word = 0; word < elements.length; word++) {
+            long missingBits = elements[word] & ~selection[word];
+            if (missingBits == 0) {
+                continue;
+            }
+            if (missing >= 0 || Long.bitCount(missingBits) > 1) {
+                return;
+            }
+            missing = (word << 6) + Long.numberOfTrailingZeros(missingBits);
+        }
+        if (missing >= 0 && optionAttribute[missing] == requestedAttribute) {
+            blocked[missing >>> 6] |= 1L << missing;
+        }
+    }
+
+    private int anchorOf(int combination, int requestedAttribute) {
+        int[] ordinals = combinationOrdinals[combination];
+        return optionAttribute[ordinals[0]] != requestedAttribute ? ordinals[0] : ordinals[1];
+    }
+
+    private static long[][] toBitSets(int[][] combinationOrdinals, int optionCount) {
+        long[][] bitSets = new long[combinationOrdinals.length][];
+        for (int combination = 0; combination < combinationOrdinals.length; combination++) {
+            bitSets[combination] = new long[words(optionCount)];
+            for (int element : combinationOrdinals[combination]) {
+                bitSets[combination][element >>> 6] |= 1L << element;
+            }
+        }
+        return bitSets;
+    }
+
+    private static int[][] postings(int[][] combinationOrdinals, int optionCount) {
+        int[] postingSizes = new int[optionCount];
+        for (int[] ordinals : combinationOrdinals) {
+            for (int element : ordinals) {
+                postingSizes[element]++;
+            }
+        }
+
+        int[][] combinationsByOption = new int[optionCount][];
+        for (int element = 0; element < optionCount; element++) {
+            combinationsByOption[element] = new int[postingSizes[element]];
+            postingSizes[element] = 0;
+        }
+        for (int combination = 0; combination < combinationOrdinals.length; combination++) {
+            for (int element : combinationOrdinals[combination]) {
+                combinationsByOption[element][postingSizes[element]++] = combination;
+            }
+        }
+        return combinationsByOption;
+    }
+
+    private static int[] postingCounts(int[][] combinationsByOption, int[] optionAttribute, int attributeCount) {
+        int[] counts = new int[attributeCount];
+        for (int element = 0; element < combinationsByOption.length; element++) {
+            counts[optionAttribute[element]] += combinationsByOption[element].length;
+        }
+        return counts;
+    }
+
+    private long[] toBitSet(Collection<Long> optionIdSet) {
+        long[] bits = new long[words(optionIds.length)];
+        for (Long optionId : optionIdSet) {
+            Integer ordinal = ordinalByOptionId.get(optionId);
+            if (ordinal != null) {
+                bits[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+        return bits;
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
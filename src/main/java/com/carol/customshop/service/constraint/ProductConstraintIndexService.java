@@ -0,0 +1,208 @@
+package com.carol.customshop.service.constraint;
+
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.entity.ProductType;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.*;
+import com.carol.customshop.service.CatalogVersionService;
+import com.carol.customshop.service.RequestCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one compiled {@link ProductConstraintIndex} per product.
+ * Indexes are built lazily in a read-only transaction and dropped whenever the product or its type changes;
+ * concurrent requests for a product whose index is missing share one compilation.
+ * Each compiled index is analyzed once ({@link ConfigurationSpaceAnalysis}); options that can never be part of a
+ * complete configuration are then made unavailable and the combinations relying on them are left out.
+ * Indexes are stamped with the catalog version read before compiling them, so that they can be persisted in a
+ * {@link ConstraintIndexSnapshot} and trusted again as long as the catalog has not changed.
+ */
+@Slf4j
+@Service
+public class ProductConstraintIndexService {
+
+    private final ProductRepository productRepository;
+    private final ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository;
+    private final ProductAttributeOverrideRepository productAttributeOverrideRepository;
+    private final ProductOptionOverrideRepository productOptionOverrideRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long analysisMaxSteps;
+
+    private final Map<UUID, CachedIndex> indexes = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so that an index compiled from stale data is never published
+    private final AtomicLong generation = new AtomicLong();
+
+    // Keyed by generation too, so that requests arriving after an invalidation do not wait for a stale compilation
+    private final RequestCoalescer<Compilation, ProductConstraintIndex> compilations;
+
+    public ProductConstraintIndexService(
+            ProductRepository productRepository,
+            ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository,
+            ProductAttributeOverrideRepository productAttributeOverrideRepository,
+            ProductOptionOverrideRepository productOptionOverrideRepository,
+            CatalogVersionService catalogVersionService,
+            PlatformTransactionManager transactionManager,
+            @Value("${configurator.analysis.max-steps:1000000}") long analysisMaxSteps,
+            MeterRegistry meterRegistry
+    ) {
+        this.productRepository = productRepository;
+        this.productNotAllowedCombinationRepository = productNotAllowedCombinationRepository;
+        this.productAttributeOverrideRepository = productAttributeOverrideRepository;
+        this.productOptionOverrideRepository = productOptionOverrideRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.analysisMaxSteps = analysisMaxSteps;
+        this.compilations = new RequestCoalescer<>("constraintIndex", meterRegistry);
+    }
+
+    public ProductConstraintIndex getIndex(UUID productId) {
+        CachedIndex cached = indexes.get(productId);
+        if (cached != null) {
+            return cached.index();
+        }
+
+        long startGeneration = generation.get();
+        return compilations.get(new Compilation(productId, startGeneration),
+                () -> compileAndPublish(productId, startGeneration));
+    }
+
+    private ProductConstraintIndex compileAndPublish(UUID productId, long startGeneration) {
+        CachedIndex cached = readOnlyTransaction.execute(status -> {
+            long catalogVersion = catalogVersionService.getCurrentVersion();
+            return new CachedIndex(compile(productId), catalogVersion);
+        });
+        ConfigurationSpaceAnalysis analysis = ConfigurationSpaceAnalysis.analyze(cached.index(), analysisMaxSteps);
+        cached = new CachedIndex(prune(cached.index(), analysis), cached.catalogVersion());
+
+        if (generation.get() == startGeneration) {
+            CachedIndex existing = indexes.putIfAbsent(productId, cached);
+            if (existing != null) {
+                return existing.index();
+            }
+            // An invalidation between the check and the put may have missed the index: take it back
+            if (generation.get() != startGeneration) {
+                indexes.remove(productId, cached);
+            }
+        }
+        return cached.index();
+    }
+
+    /**
+     * Captures the cached indexes that are still up to date with the given catalog version.
+     */
+    public ConstraintIndexSnapshot snapshot(long catalogVersion) {
+        List<ProductConstraintIndex> current = indexes.values().stream()
+                .filter(cached -> cached.catalogVersion() == catalogVersion)
+                .map(CachedIndex::index)
+                .toList();
+        return new ConstraintIndexSnapshot(catalogVersion, current);
+    }
+
+    /**
+     * Publishes the indexes of a snapshot, provided the catalog has not changed since it was taken.
+     *
+     * @return whether the snapshot was still current
+     */
+    public boolean preload(ConstraintIndexSnapshot snapshot) {
+        long startGeneration = generation.get();
+        if (catalogVersionService.getCurrentVersion() != snapshot.getCatalogVersion()
+                || generation.get() != startGeneration) {
+            return false;
+        }
+        for (ProductConstraintIndex index : snapshot.getIndexes()) {
+            indexes.putIfAbsent(index.getProductId(), new CachedIndex(index, snapshot.getCatalogVersion()));
+        }
+        return true;
+    }
+
+    /**
+     * Analyzes the rules of a product type on their own, as any product of that type without overrides sees them.
+     */
+    public ConfigurationSpaceAnalysis analyzeProductType(ProductType productType) {
+        return ConfigurationSpaceAnalysis.analyze(ProductConstraintIndex.compile(productType), analysisMaxSteps);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.getScope() == CatalogChangedEvent.Scope.PRODUCT) {
+            indexes.remove(event.getId());
+        } else {
+            indexes.values().removeIf(cached -> cached.index().getProductTypeId().equals(event.getId()));
+        }
+    }
+
+    // A product without any complete configuration is misconfigured rather than made of dead options: keep it as is
+    private ProductConstraintIndex prune(ProductConstraintIndex index, ConfigurationSpaceAnalysis analysis) {
+        log.debug("Product {} has {} complete configurations", index.getProductId(),
+                analysis.isComplete() ? analysis.getValidConfigurationCount() : "too many to count");
+        if (!analysis.isComplete() || analysis.getValidConfigurationCount().signum() == 0) {
+            return index;
+        }
+        if (!analysis.getDeadOptionIds().isEmpty()) {
+            log.info("Product {} has {} options that can never be part of a complete configuration: {}",
+                    index.getProductId(), analysis.getDeadOptionIds().size(), analysis.getDeadOptionIds());
+        }
+        return index.withoutDeadOptions(analysis.getDeadOptionIds());
+    }
+
+    private ProductConstraintIndex compile(UUID productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+
+        Set<Long> deactivatedAttributes = productAttributeOverrideRepository.findByProductAndActiveFalse(product)
+                .stream()
+                .map(override -> override.getAttribute().getId())
+                .collect(Collectors.toSet());
+
+        Set<Long> deactivatedOptions = productOptionOverrideRepository.findByProductAndActiveFalse(product)
+                .stream()
+                .map(override -> override.getOption().getId())
+                .collect(Collectors.toSet());
+
+        Set<Long> outOfStockOptions = productOptionOverrideRepository.findByProductAndOutOfStockTrue(product)
+                .stream()
+                .map(override -> override.getOption().getId())
+                .collect(Collectors.toSet());
+
+        Set<Long> deactivatedCombinations = product.getNotAllowedCombinationsOverrides().stream()
+                .filter(override -> !override.isActive())
+                .map(override -> override.getNotAllowedCombination().getId())
+                .collect(Collectors.toSet());
+
+        ProductConstraintIndex index = ProductConstraintIndex.compile(
+                product,
+                productNotAllowedCombinationRepository.findByProduct(product),
+                deactivatedAttributes,
+                deactivatedOptions,
+                outOfStockOptions,
+                deactivatedCombinations
+        );
+
+        log.debug("Compiled constraint index for product {}", productId);
+        return index;
+    }
+
+    private record CachedIndex(ProductConstraintIndex index, long catalogVersion) {
+    }
+
+    private record Compilation(UUID productId, long generation) {
+    }
+}
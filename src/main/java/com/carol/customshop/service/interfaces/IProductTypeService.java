@@ -4,6 +4,7 @@ package com.carol.customshop.service.interfaces;
 import com.carol.customshop.dto.AttributeRequest;
 import com.carol.customshop.dto.NotAllowedCombinationItem;
 import com.carol.customshop.dto.ProductTypeDetailsResponse;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer;
 import jakarta.transaction.Transactional;
 
 import java.util.List;
@@ -12,8 +13,14 @@ import java.util.UUID;
 public interface IProductTypeService {
     boolean addAttributesToProductType(String productTypeID, List<AttributeRequest> attributes);
 
+    /**
+     * Stores the combinations that add something to the rules of the product type.
+     *
+     * @return which combinations were stored, which were pruned and which existing ones they supersede
+     */
     @Transactional
-    void addNotAllowedCombinations(String productTypeId, List<List<NotAllowedCombinationItem>> notAllowedCombinations);
+    NotAllowedCombinationNormalizer.Result<Long> addNotAllowedCombinations(
+            String productTypeId, List<List<NotAllowedCombinationItem>> notAllowedCombinations);
 
     ProductTypeDetailsResponse getAdditionalProductTypeDetails(UUID productTypeId);
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.carol.customshop.integration.controller;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true"
+)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureMockMvc
+class CatalogConditionalRequestIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID productTypeId;
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        productType = productTypeRepository.save(productType);
+        productTypeId = productType.getId();
+
+        Product product = new Product();
+        product.setName("Cruiser");
+        product.setSku(UUID.randomUUID().toString());
+        product.setProductType(productType);
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedFromTheVersionAlone() throws Exception {
+        String eTag = eTag("/v1/admin/products/" + productId);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/v1/admin/products/" + productId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldChangeETagsWhenTheCatalogChanges() throws Exception {
+        String productETag = eTag("/v1/products/" + productId);
+        String productTypeETag = eTag("/v1/admin/product-types/" + productTypeId);
+        String listETag = eTag("/v1/products");
+
+        // A rule added to the type changes the type, its products and the lists
+        publish(CatalogChangedEvent.productType(productTypeId));
+
+        assertNotEquals(productETag, eTag("/v1/products/" + productId));
+        assertNotEquals(productTypeETag, eTag("/v1/admin/product-types/" + productTypeId));
+        assertNotEquals(listETag, eTag("/v1/products"));
+        mockMvc.perform(get("/v1/products/" + productId).header(HttpHeaders.IF_NONE_MATCH, productETag))
+                .andExpect(status().isOk());
+
+        // A product override only changes that product and the lists
+        String newProductTypeETag = eTag("/v1/admin/product-types/" + productTypeId);
+        publish(CatalogChangedEvent.product(productId));
+        mockMvc.perform(get("/v1/admin/product-types/" + productTypeId)
+                        .header(HttpHeaders.IF_NONE_MATCH, newProductTypeETag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String eTag(String path) throws Exception {
+        return mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void publish(CatalogChangedEvent event) {
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(event));
+    }
+}
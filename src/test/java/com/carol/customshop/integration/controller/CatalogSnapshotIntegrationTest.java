@@ -0,0 +1,128 @@
+package com.carol.customshop.integration.controller;
+
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.entity.ProductType;
+import com.carol.customshop.entity.ProductTypeConfig;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "catalog.snapshot.enabled=true"
+        }
+)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureMockMvc
+class CatalogSnapshotIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID productId;
+    private String productName;
+
+    @BeforeEach
+    void setUp() {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        productType = productTypeRepository.save(productType);
+
+        productName = "Cruiser " + UUID.randomUUID();
+        Product product = new Product();
+        product.setName(productName);
+        product.setSku(UUID.randomUUID().toString());
+        product.setPrice(10f);
+        product.setProductType(productType);
+        productId = productRepository.save(product).getId();
+        publish(CatalogChangedEvent.product(productId));
+    }
+
+    @Test
+    void shouldServeCustomerReadsWithoutTheDatabase() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String eTag = mockMvc.perform(get("/v1/products/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(productName))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/v1/products/" + productId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/v1/products").param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[?(@.id == '" + productId + "')].name").value(productName));
+        mockMvc.perform(get("/v1/products/details").param("ids", productId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].product.name").value(productName));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldApplyCommittedChangesAndDeletions() throws Exception {
+        String listETag = mockMvc.perform(get("/v1/products"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.findById(productId).orElseThrow().setName("Tourer");
+            eventPublisher.publishEvent(CatalogChangedEvent.product(productId));
+        });
+        mockMvc.perform(get("/v1/products/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Tourer"));
+        mockMvc.perform(get("/v1/products").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isOk());
+
+        productService.deleteProduct(productId);
+        mockMvc.perform(get("/v1/products/" + productId))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void publish(CatalogChangedEvent event) {
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(event));
+    }
+}
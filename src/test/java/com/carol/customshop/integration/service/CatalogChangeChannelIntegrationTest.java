@@ -0,0 +1,157 @@
+package com.carol.customshop.integration.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.entity.CatalogChange;
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.entity.ProductType;
+import com.carol.customshop.entity.ProductTypeConfig;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.CatalogChangeNotificationRepository;
+import com.carol.customshop.repository.CatalogChangeRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.CatalogSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Changes made by another node reach this node's caches. The other node is played by the test, which writes to the
+ * database and notifies the channel as that node would. It needs PostgreSQL, so it only runs when POSTGRES_TEST_URL
+ * (and optionally POSTGRES_TEST_USER and POSTGRES_TEST_PASSWORD) point at a scratch database.
+ */
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=${POSTGRES_TEST_URL}",
+                "spring.datasource.username=${POSTGRES_TEST_USER:postgres}",
+                "spring.datasource.password=${POSTGRES_TEST_PASSWORD:}",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "configurator.snapshot.path=",
+                "catalog.snapshot.enabled=true",
+                "catalog.invalidation.enabled=true"
+        }
+)
+class CatalogChangeChannelIntegrationTest {
+
+    private static final String OTHER_NODE = "other-node";
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private CatalogChangeNotificationRepository catalogChangeNotificationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductType productType;
+
+    @BeforeEach
+    void setUp() {
+        productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        productType = productTypeRepository.save(productType);
+    }
+
+    @Test
+    void shouldRecordLocalChangesAndApplyThoseOfOtherNodes() {
+        UUID productId = createProduct("Cruiser");
+        CatalogChange local = catalogChangeRepository.findById(latestVersion()).orElseThrow();
+        assertEquals(productId, local.getEntityId());
+
+        renameOnOtherNode(productId, "Tourer", true);
+
+        awaitName(productId, "Tourer");
+    }
+
+    @Test
+    void shouldCatchUpOnChangesWhoseNotificationWasMissed() {
+        UUID missedProductId = createProduct("Cruiser");
+        UUID notifiedProductId = createProduct("Roadster");
+
+        renameOnOtherNode(missedProductId, "Tourer", false);
+        renameOnOtherNode(notifiedProductId, "Racer", true);
+
+        awaitName(notifiedProductId, "Racer");
+        awaitName(missedProductId, "Tourer");
+    }
+
+    private UUID createProduct(String name) {
+        return transactionTemplate.execute(status -> {
+            Product product = new Product();
+            product.setName(name);
+            product.setSku(UUID.randomUUID().toString());
+            product.setProductType(productType);
+            UUID productId = productRepository.save(product).getId();
+            eventPublisher.publishEvent(CatalogChangedEvent.product(productId));
+            return productId;
+        });
+    }
+
+    // What the other node's services and CatalogVersionService do in the transaction of its change
+    private void renameOnOtherNode(UUID productId, String name, boolean notify) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE products SET name = ?, version = version + 1 WHERE id = ?", name, productId);
+            jdbcTemplate.update("UPDATE catalog_version SET version = version + 1");
+            long version = jdbcTemplate.queryForObject("SELECT version FROM catalog_version", Long.class);
+            CatalogChange change = catalogChangeRepository.save(
+                    new CatalogChange(version, CatalogChangedEvent.Scope.PRODUCT, productId, OTHER_NODE));
+            if (notify) {
+                catalogChangeNotificationRepository.notify(change.toPayload());
+            }
+        });
+    }
+
+    private long latestVersion() {
+        return catalogChangeRepository.findLatestVersion().orElseThrow();
+    }
+
+    private void awaitName(UUID productId, String name) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            String current = catalogSnapshotService.current()
+                    .flatMap(snapshot -> snapshot.findCustomerDetails(productId))
+                    .map(ProductDetailsCustomerResponse::getName)
+                    .orElse(null);
+            if (name.equals(current)) {
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+        fail("Product " + productId + " was not renamed to " + name + " within " + TIMEOUT_MILLIS + " ms");
+    }
+}
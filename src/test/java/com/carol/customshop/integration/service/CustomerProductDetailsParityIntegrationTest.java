@@ -0,0 +1,145 @@
+package com.carol.customshop.integration.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.entity.*;
+import com.carol.customshop.repository.CustomerProductDetailsJsonRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The SQL/JSON read path must render the same document as the JPA path. It needs PostgreSQL, so it only runs when
+ * POSTGRES_TEST_URL (and optionally POSTGRES_TEST_USER and POSTGRES_TEST_PASSWORD) point at a scratch database;
+ * the path is off by default for that reason.
+ */
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=${POSTGRES_TEST_URL}",
+                "spring.datasource.username=${POSTGRES_TEST_USER:postgres}",
+                "spring.datasource.password=${POSTGRES_TEST_PASSWORD:}",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "configurator.snapshot.path="
+        }
+)
+class CustomerProductDetailsParityIntegrationTest {
+
+    private static final String BASE_URL = "http://localhost";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CustomerProductDetailsJsonRepository customerProductDetailsJsonRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldRenderTheSameDocumentAsTheJpaPath() throws Exception {
+        UUID productId = createProduct().getId();
+
+        ProductDetailsCustomerResponse jpa = productService.getProductDetailsForCustomer(productId);
+        String json = customerProductDetailsJsonRepository.findCustomerDetailsJson(productId, BASE_URL).orElseThrow();
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(jpa)), objectMapper.readTree(json));
+    }
+
+    @Test
+    void shouldFindNothingForUnknownProduct() {
+        assertEquals(Optional.empty(),
+                customerProductDetailsJsonRepository.findCustomerDetailsJson(UUID.randomUUID(), BASE_URL));
+    }
+
+    // Frame Type (deactivated for the product), Frame Finish and Wheels, with one option deactivated, one out of
+    // stock and one overridden but still available
+    private Product createProduct() {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        attribute(productType, "Frame Type", "Full-suspension", "Diamond");
+        attribute(productType, "Frame Finish", "Matte", "Shiny");
+        attribute(productType, "Wheels", "Road", "Mountain", "Fat bike");
+        productType = productTypeRepository.save(productType);
+        List<ProductTypeAttribute> attributes = productType.getAttributes();
+
+        Product product = new Product();
+        product.setName("Cruiser");
+        product.setSku(UUID.randomUUID().toString());
+        product.setDescription("A bicycle \"for\" the city");
+        product.setPrice(1299.99f);
+        product.setMainPicture("cruiser.png");
+        product.setImageGallery(new ArrayList<>(List.of("side.png", "front.png")));
+        product.setProductType(productType);
+
+        ProductAttributeOverride attributeOverride = new ProductAttributeOverride();
+        attributeOverride.setProduct(product);
+        attributeOverride.setAttribute(attributes.get(0));
+        attributeOverride.setActive(false);
+        product.getAttributeOverrides().add(attributeOverride);
+
+        optionOverride(product, attributes.get(1).getOptions().get(0), false, false);
+        optionOverride(product, attributes.get(2).getOptions().get(1), true, true);
+        optionOverride(product, attributes.get(2).getOptions().get(2), true, false);
+
+        return productRepository.save(product);
+    }
+
+    private void attribute(ProductType productType, String name, String... optionNames) {
+        ProductTypeAttribute attribute = new ProductTypeAttribute();
+        attribute.setAttributeName(name);
+        attribute.setProductType(productType);
+        for (String optionName : optionNames) {
+            ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+            option.setName(optionName);
+            option.setAttribute(attribute);
+            attribute.getOptions().add(option);
+        }
+        productType.getAttributes().add(attribute);
+    }
+
+    private void optionOverride(
+            Product product, ProductTypeAttributeOption option, boolean active, boolean outOfStock
+    ) {
+        ProductOptionOverride override = new ProductOptionOverride();
+        override.setProduct(product);
+        override.setOption(option);
+        override.setActive(active);
+        override.setOutOfStock(outOfStock);
+        product.getOptionOverrides().add(override);
+    }
+}
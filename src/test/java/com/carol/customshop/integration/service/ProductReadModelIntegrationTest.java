@@ -0,0 +1,202 @@
+package com.carol.customshop.integration.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.dto.ProductListResponse;
+import com.carol.customshop.entity.*;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductReadModelRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.ProductReadModelService;
+import com.carol.customshop.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.carol.customshop.service.ProductSection.LIST_ITEM;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true"
+)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ProductReadModelIntegrationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductReadModelService productReadModelService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private ProductReadModelRepository productReadModelRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldServeCustomerDetailsFromTheReadModelOnceTheProductChanges() {
+        UUID productId = createProduct("Cruiser");
+        publishChange(productId);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ProductDetailsCustomerResponse response = productService.getProductDetailsForCustomer(productId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals("Cruiser", response.getName());
+        assertEquals("http://localhost/cruiser.png", response.getMainPicture());
+        // Wheels are deactivated and Shiny is out of stock
+        assertEquals(1, response.getProductAttributes().size());
+        assertEquals(List.of("Matte"),
+                response.getProductAttributes().get(0).getOptions().stream().map(o -> o.getName()).toList());
+
+        ProductDetailsCustomerResponse derived = transactionTemplate.execute(status -> productReadModelService
+                .buildCustomerDetails(productRepository.findWithTypeAttributesById(productId).orElseThrow()));
+        assertEquals(derived.getProductAttributes(), response.getProductAttributes());
+    }
+
+    @Test
+    void shouldListProductsFromTheReadModelAndDropDeletedOnes() {
+        UUID productId = createProduct("Aaa " + UUID.randomUUID());
+        publishChange(productId);
+
+        ProductListResponse list = productService.getProductList(1, 100, null, false, LIST_ITEM);
+        assertTrue(list.getProducts().stream().anyMatch(item -> item.getId().equals(productId)
+                && "http://localhost/cruiser.png".equals(item.getMainPicture())));
+
+        productService.deleteProduct(productId);
+
+        assertFalse(productReadModelRepository.existsById(productId));
+    }
+
+    @Test
+    void shouldRebuildTheProductsOfAChangedTypeWithoutQueriesPerProduct() {
+        long fewProducts = typeChangeStatements(2);
+        long moreProducts = typeChangeStatements(6);
+
+        // Only the writes of the four extra rows
+        assertEquals(fewProducts + 4, moreProducts);
+    }
+
+    // Statements run by a product type change whose type has the given number of products
+    private long typeChangeStatements(int products) {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        attribute(productType, "Frame Finish", "Matte", "Shiny");
+        UUID productTypeId = productTypeRepository.save(productType).getId();
+        List<UUID> productIds = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setName("Cruiser " + i);
+            product.setSku(UUID.randomUUID().toString());
+            product.setProductType(productType);
+            productIds.add(productRepository.save(product).getId());
+        }
+        productIds.forEach(this::publishChange);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            ProductType renamed = productTypeRepository.findById(productTypeId).orElseThrow();
+            renamed.setName("Renamed " + renamed.getName());
+            eventPublisher.publishEvent(CatalogChangedEvent.productType(productTypeId));
+        });
+        long statements = statistics.getPrepareStatementCount();
+
+        for (UUID productId : productIds) {
+            assertTrue(productReadModelRepository.findById(productId).orElseThrow().getListItem()
+                    .contains("\"productTypeName\":\"Renamed "));
+        }
+        return statements;
+    }
+
+    private void publishChange(UUID productId) {
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(
+                CatalogChangedEvent.product(productId)));
+    }
+
+    private UUID createProduct(String name) {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        ProductTypeAttribute finish = attribute(productType, "Frame Finish", "Matte", "Shiny");
+        ProductTypeAttribute wheels = attribute(productType, "Wheels", "Road", "Mountain");
+        productTypeRepository.save(productType);
+
+        Product product = new Product();
+        product.setName(name);
+        product.setSku(UUID.randomUUID().toString());
+        product.setMainPicture("/cruiser.png");
+        product.setProductType(productType);
+
+        ProductAttributeOverride attributeOverride = new ProductAttributeOverride();
+        attributeOverride.setProduct(product);
+        attributeOverride.setAttribute(wheels);
+        product.getAttributeOverrides().add(attributeOverride);
+
+        ProductOptionOverride optionOverride = new ProductOptionOverride();
+        optionOverride.setProduct(product);
+        optionOverride.setOption(finish.getOptions().get(1));
+        optionOverride.setActive(true);
+        optionOverride.setOutOfStock(true);
+        product.getOptionOverrides().add(optionOverride);
+
+        return productRepository.save(product).getId();
+    }
+
+    private ProductTypeAttribute attribute(ProductType productType, String name, String... optionNames) {
+        ProductTypeAttribute attribute = new ProductTypeAttribute();
+        attribute.setAttributeName(name);
+        attribute.setProductType(productType);
+        for (String optionName : optionNames) {
+            ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+            option.setName(optionName);
+            option.setAttribute(attribute);
+            attribute.getOptions().add(option);
+        }
+        productType.getAttributes().add(attribute);
+        return attribute;
+    }
+}
@@ -0,0 +1,295 @@
+package com.carol.customshop.integration.service;
+
+import com.carol.customshop.dto.ProductDetailsBatchResult;
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.dto.ProductDetailsResponse;
+import com.carol.customshop.dto.ProductListItemResponse;
+import com.carol.customshop.dto.ProductListResponse;
+import com.carol.customshop.entity.*;
+import com.carol.customshop.repository.CartRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.CartService;
+import com.carol.customshop.service.ProductSection;
+import com.carol.customshop.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.carol.customshop.service.ProductSection.LIST_ITEM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The read endpoints must load their aggregate in a number of queries that does not grow with the catalog.
+ * Customer reads use the entity path here; the read model is covered by {@link ProductReadModelIntegrationTest}.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "product.details.customer.read-path=jpa",
+                "product.list.read-path=jpa",
+                "product.list.count-strategy.admin=none"
+        }
+)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ProductReadQueryCountIntegrationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cartRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldReadProductDetailsInAConstantNumberOfQueries() {
+        Product small = createProduct(2, 2);
+        Product large = createProduct(6, 5);
+
+        assertEquals(
+                queries(() -> productService.getProductDetails(small.getId())),
+                queries(() -> productService.getProductDetails(large.getId())));
+        assertEquals(
+                queries(() -> productService.getProductDetailsForCustomer(small.getId())),
+                queries(() -> productService.getProductDetailsForCustomer(large.getId())));
+    }
+
+    @Test
+    void shouldSkipTheQueriesOfSectionsLeftOut() {
+        UUID productId = createProduct(3, 3).getId();
+
+        long allSections = queries(() -> productService.getProductDetails(productId));
+        long attributesOnly = queries(() -> {
+            ProductDetailsResponse response = productService.getProductDetails(
+                    productId, ProductSection.parse("productAttributes", ProductSection.ADMIN_DETAILS));
+            assertEquals(3, response.getProductAttributes().size());
+            assertNull(response.getProductNotAllowedCombinations());
+            assertNull(response.getSpecificNotAllowedCombinations());
+            assertNull(response.getImageGallery());
+        });
+        // Product with type, options, attribute overrides and option overrides
+        assertEquals(4, attributesOnly);
+        assertTrue(attributesOnly < allSections);
+
+        assertEquals(1, queries(() -> {
+            ProductDetailsCustomerResponse response = productService.getProductDetailsForCustomer(
+                    productId, ProductSection.parse("id,name", ProductSection.CUSTOMER_DETAILS));
+            assertNull(response.getProductAttributes());
+            assertNull(response.getDescription());
+        }));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductSection.parse("productAttributes,weight", ProductSection.CUSTOMER_DETAILS));
+    }
+
+    @Test
+    void shouldReadProductDetailsBatchesInAConstantNumberOfQueries() {
+        List<UUID> two = List.of(createProduct(2, 2).getId(), createProduct(3, 2).getId());
+        List<UUID> six = new ArrayList<>(two);
+        for (int i = 0; i < 4; i++) {
+            six.add(createProduct(4, 3).getId());
+        }
+        UUID unknown = UUID.randomUUID();
+        six.add(unknown);
+
+        assertEquals(
+                queries(() -> productService.getProductDetailsBatchForCustomer(two)),
+                queries(() -> productService.getProductDetailsBatchForCustomer(six)));
+
+        List<ProductDetailsBatchResult> results = productService.getProductDetailsBatchForCustomer(six).getResults();
+        assertEquals(six, results.stream().map(ProductDetailsBatchResult::getProductId).toList());
+        assertEquals(productService.getProductDetailsForCustomer(two.get(1)), results.get(1).getProduct());
+        assertNull(results.get(6).getProduct());
+        assertEquals("Product not found with ID: " + unknown, results.get(6).getError());
+    }
+
+    @Test
+    void shouldReadListAndCartInAConstantNumberOfQueries() {
+        Product small = createProduct(2, 2);
+        addToCart(small, 1);
+        long smallList = queries(() -> productService.getProductList(1, 10, null, false, LIST_ITEM));
+        long smallCart = queries(() -> cartService.getCartItems());
+
+        Product large = createProduct(6, 5);
+        addToCart(large, 6);
+        addToCart(small, 3);
+        assertEquals(smallList, queries(() -> productService.getProductList(1, 10, null, false, LIST_ITEM)));
+        assertEquals(smallCart, queries(() -> cartService.getCartItems()));
+
+        // The admin list is configured not to count, so a full page is still a single statement
+        assertEquals(1, queries(
+                () -> assertNull(productService.getAdminProductList(1, 1, null, true, LIST_ITEM).getTotalItems())));
+    }
+
+    @Test
+    void shouldReadEveryCursorPageInTheSameNumberOfQueries() {
+        for (int i = 0; i < 5; i++) {
+            createProduct(2, 2);
+        }
+        List<UUID> offsetOrder = productService.getProductList(1, 1000, null, false, LIST_ITEM).getProducts().stream()
+                .map(ProductListItemResponse::getId)
+                .toList();
+
+        ProductListResponse firstPage = productService.getProductList(1, 2, null, false, LIST_ITEM);
+        List<UUID> cursorOrder = new ArrayList<>(firstPage.getProducts().stream()
+                .map(ProductListItemResponse::getId)
+                .toList());
+        String cursor = firstPage.getNextCursor();
+        Long cursorPageQueries = null;
+        while (cursor != null) {
+            String pageCursor = cursor;
+            statistics.clear();
+            ProductListResponse page = productService.getProductList(null, 2, pageCursor, false, LIST_ITEM);
+            long pageQueries = statistics.getPrepareStatementCount();
+            if (cursorPageQueries == null) {
+                cursorPageQueries = pageQueries;
+            }
+            assertEquals(cursorPageQueries, pageQueries);
+            assertNull(page.getTotalItems());
+            page.getProducts().forEach(item -> cursorOrder.add(item.getId()));
+            cursor = page.getNextCursor();
+        }
+
+        assertEquals(offsetOrder, cursorOrder);
+        assertEquals(1, cursorPageQueries);
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.getProductList(null, 2, "not-a-cursor", false, LIST_ITEM));
+    }
+
+    private long queries(Runnable read) {
+        statistics.clear();
+        read.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addToCart(Product product, int optionCount) {
+        List<ProductTypeAttributeOption> options = product.getProductType().getAttributes().stream()
+                .map(attribute -> attribute.getOptions().get(0))
+                .limit(optionCount)
+                .toList();
+        CartItem cartItem = new CartItem();
+        cartItem.setProduct(product);
+        cartItem.setQuantity(1);
+        cartItem.setLabel(product.getName());
+        cartItem.setSelectedOptions(new ArrayList<>(options));
+        cartRepository.save(cartItem);
+    }
+
+    private Product createProduct(int attributeCount, int optionsPerAttribute) {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        for (int a = 0; a < attributeCount; a++) {
+            ProductTypeAttribute attribute = new ProductTypeAttribute();
+            attribute.setAttributeName("Attribute " + a);
+            attribute.setProductType(productType);
+            for (int o = 0; o < optionsPerAttribute; o++) {
+                ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+                option.setName("Option " + a + "." + o);
+                option.setAttribute(attribute);
+                attribute.getOptions().add(option);
+            }
+            productType.getAttributes().add(attribute);
+        }
+        productType = productTypeRepository.save(productType);
+
+        List<ProductTypeAttribute> attributes = productType.getAttributes();
+        for (int a = 0; a + 1 < attributeCount; a++) {
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setProductType(productType);
+            combination.setOptions(new ArrayList<>(List.of(
+                    element(combination, attributes.get(a)), element(combination, attributes.get(a + 1)))));
+            productType.getNotAllowedCombinations().add(combination);
+        }
+        productType = productTypeRepository.save(productType);
+        attributes = productType.getAttributes();
+
+        Product product = new Product();
+        product.setName("Product " + UUID.randomUUID());
+        product.setSku(UUID.randomUUID().toString());
+        product.setProductType(productType);
+        for (ProductTypeAttribute attribute : attributes) {
+            ProductOptionOverride optionOverride = new ProductOptionOverride();
+            optionOverride.setProduct(product);
+            optionOverride.setOption(attribute.getOptions().get(1));
+            optionOverride.setActive(true);
+            optionOverride.setOutOfStock(true);
+            product.getOptionOverrides().add(optionOverride);
+        }
+        ProductAttributeOverride attributeOverride = new ProductAttributeOverride();
+        attributeOverride.setProduct(product);
+        attributeOverride.setAttribute(attributes.get(attributeCount - 1));
+        product.getAttributeOverrides().add(attributeOverride);
+        for (NotAllowedCombination typeCombination : productType.getNotAllowedCombinations()) {
+            ProductNACombinationOverride combinationOverride = new ProductNACombinationOverride();
+            combinationOverride.setProduct(product);
+            combinationOverride.setNotAllowedCombination(typeCombination);
+            product.getNotAllowedCombinationsOverrides().add(combinationOverride);
+
+            ProductNotAllowedCombination combination = new ProductNotAllowedCombination();
+            combination.setProduct(product);
+            List<ProductNotAllowedCombinationElement> elements = new ArrayList<>();
+            for (NotAllowedCombinationElement typeElement : typeCombination.getOptions()) {
+                ProductNotAllowedCombinationElement element = new ProductNotAllowedCombinationElement();
+                element.setCombination(combination);
+                element.setAttribute(typeElement.getAttribute());
+                element.setOption(typeElement.getAttribute().getOptions().get(1));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            product.getNotAllowedCombinations().add(combination);
+        }
+        return productRepository.save(product);
+    }
+
+    private NotAllowedCombinationElement element(NotAllowedCombination combination, ProductTypeAttribute attribute) {
+        NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+        element.setNotAllowedCombination(combination);
+        element.setAttribute(attribute);
+        element.setAttributeOption(attribute.getOptions().get(0));
+        return element;
+    }
+}
@@ -0,0 +1,121 @@
+package com.carol.customshop.integration.service;
+
+import com.carol.customshop.dto.AttributeRequest;
+import com.carol.customshop.dto.NotAllowedCombinationItem;
+import com.carol.customshop.dto.NotAllowedCombinationsRequest;
+import com.carol.customshop.entity.ProductType;
+import com.carol.customshop.entity.ProductTypeConfig;
+import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.CustomizableProductTypeService;
+import com.carol.customshop.service.ProductTypeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true"
+)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class SecondLevelCacheIntegrationTest {
+
+    private static final String PRODUCT_TYPE_REGION = ProductType.class.getName();
+
+    @Autowired
+    private ProductTypeRepository productTypeRepository;
+
+    @Autowired
+    private ProductTypeService productTypeService;
+
+    @Autowired
+    private CustomizableProductTypeService customizableProductTypeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private UUID productTypeId;
+
+    @BeforeEach
+    void setUp() {
+        ProductType productType = new ProductType();
+        productType.setName("Bicycle " + UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+        productTypeId = productTypeRepository.save(productType).getId();
+        addAttribute("Frame Finish", "Matte", "Shiny");
+    }
+
+    @Test
+    void shouldReadTheProductTypeAggregateFromTheCache() {
+        List<String> warm = attributeOptionNames();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        double hits = hits();
+
+        assertEquals(warm, attributeOptionNames());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(hits() > hits);
+    }
+
+    @Test
+    void shouldInvalidateTheCachedCollectionsWhenAttributesOrCombinationsAreAdded() {
+        assertEquals(List.of("Frame Finish: Matte, Shiny"), attributeOptionNames());
+        assertEquals(0, combinationCount());
+
+        addAttribute("Wheels", "Road", "Mountain");
+        assertEquals(List.of("Frame Finish: Matte, Shiny", "Wheels: Road, Mountain"), attributeOptionNames());
+
+        List<NotAllowedCombinationItem> combination = transactionTemplate.execute(status ->
+                productTypeRepository.findById(productTypeId).orElseThrow().getAttributes().stream()
+                        .map(attribute -> new NotAllowedCombinationItem(attribute.getId(),
+                                attribute.getOptions().get(0).getId()))
+                        .toList());
+        productTypeService.addNotAllowedCombinations(
+                new NotAllowedCombinationsRequest(productTypeId.toString(), List.of(combination)));
+        assertEquals(1, combinationCount());
+    }
+
+    private void addAttribute(String name, String... options) {
+        transactionTemplate.executeWithoutResult(status -> customizableProductTypeService.addAttributesToProductType(
+                productTypeId.toString(), List.of(new AttributeRequest(name, List.of(options)))));
+    }
+
+    private List<String> attributeOptionNames() {
+        return transactionTemplate.execute(status -> productTypeRepository.findById(productTypeId).orElseThrow()
+                .getAttributes().stream()
+                .map(attribute -> attribute.getAttributeName() + ": " + String.join(", ",
+                        attribute.getOptions().stream().map(option -> option.getName()).toList()))
+                .toList());
+    }
+
+    private int combinationCount() {
+        return transactionTemplate.execute(status ->
+                productTypeRepository.findById(productTypeId).orElseThrow().getNotAllowedCombinations().size());
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", PRODUCT_TYPE_REGION).tag("result", "hit")
+                .functionCounter().count();
+    }
+}
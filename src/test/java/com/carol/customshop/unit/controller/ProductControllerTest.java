@@ -0,0 +1,82 @@
+package com.carol.customshop.unit.controller;
+
+import com.carol.customshop.controller.ProductController;
+import com.carol.customshop.service.CatalogSnapshotService;
+import com.carol.customshop.service.CatalogVersionService;
+import com.carol.customshop.service.ProductDetailsCoalescer;
+import com.carol.customshop.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Customer details rendered by the database (the sql-json read path) are written as is, as a JSON document.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductControllerTest {
+
+    private static final String DOCUMENT = "{\"name\":\"Cruiser\",\"imageGallery\":[]}";
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductDetailsCoalescer productDetailsCoalescer;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private WebRequest webRequest;
+
+    private MockMvc mockMvc;
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, productDetailsCoalescer,
+                catalogVersionService, catalogSnapshotService, webRequest)).build();
+        productId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldWriteTheDatabaseDocumentAsIsToJsonClients() throws Exception {
+        when(productService.rendersProductDetailsJsonForCustomer(anySet())).thenReturn(true);
+        when(catalogVersionService.getProductVersion(productId)).thenReturn(Optional.of(3L));
+        when(webRequest.checkNotModified(anyString())).thenReturn(false);
+        when(productDetailsCoalescer.getProductDetailsJsonForCustomer(productId, 3L)).thenReturn(DOCUMENT);
+
+        mockMvc.perform(get("/v1/products/" + productId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(DOCUMENT))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void shouldTurnAwayClientsThatDoNotAcceptJsonBeforeReading() throws Exception {
+        mockMvc.perform(get("/v1/products/" + productId).accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+        verifyNoInteractions(productDetailsCoalescer);
+    }
+}
@@ -0,0 +1,115 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.dto.AvailableAttributeOptionsResponse;
+import com.carol.customshop.entity.Product;
+import com.carol.customshop.entity.ProductType;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.service.constraint.AvailableOptionsCache;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailableOptionsCacheTest {
+
+    @Mock
+    private ProductConstraintIndexService productConstraintIndexService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AvailableOptionsCache cache;
+    private UUID productId;
+    private UUID productTypeId;
+    private AtomicInteger loads;
+    private Function<ProductConstraintIndex, AvailableAttributeOptionsResponse> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AvailableOptionsCache(productConstraintIndexService, 2, meterRegistry);
+        productId = UUID.randomUUID();
+        productTypeId = UUID.randomUUID();
+        loads = new AtomicInteger();
+        loader = index -> new AvailableAttributeOptionsResponse(1L, "Frame " + loads.incrementAndGet(), List.of());
+    }
+
+    @Test
+    void shouldServeSameSelectionInAnyOrderFromCache() {
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(index());
+
+        AvailableAttributeOptionsResponse first = cache.get(productId, 1L, List.of(22L, 31L), loader);
+        AvailableAttributeOptionsResponse second = cache.get(productId, 1L, List.of(31L, 22L), loader);
+        cache.get(productId, 2L, List.of(31L, 22L), loader);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void shouldEvictEntriesOfChangedProductOrProductType() {
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(index());
+
+        cache.get(productId, 1L, List.of(), loader);
+        cache.onCatalogChanged(CatalogChangedEvent.product(UUID.randomUUID()));
+        assertEquals(1, cache.size());
+
+        cache.onCatalogChanged(CatalogChangedEvent.productType(productTypeId));
+        assertEquals(0, cache.size());
+
+        cache.get(productId, 1L, List.of(), loader);
+        cache.onCatalogChanged(CatalogChangedEvent.product(productId));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldRecomputeWhenIndexWasReplaced() {
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(index(), index());
+
+        cache.get(productId, 1L, List.of(), loader);
+        cache.get(productId, 1L, List.of(), loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(index());
+
+        cache.get(productId, 1L, List.of(), loader);
+        cache.get(productId, 2L, List.of(), loader);
+        cache.get(productId, 1L, List.of(), loader);
+        cache.get(productId, 3L, List.of(), loader);
+        cache.get(productId, 1L, List.of(), loader);
+        cache.get(productId, 2L, List.of(), loader);
+
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, loads.get());
+    }
+
+    private ProductConstraintIndex index() {
+        ProductType productType = new ProductType();
+        productType.setId(productTypeId);
+        Product product = new Product();
+        product.setId(productId);
+        product.setProductType(productType);
+        return ProductConstraintIndex.compile(product, List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+    }
+}
@@ -0,0 +1,107 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.entity.ProductType;
+import com.carol.customshop.entity.ProductTypeAttribute;
+import com.carol.customshop.entity.ProductTypeAttributeOption;
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.NotAllowedCombinationRepository;
+import com.carol.customshop.repository.ProductTypeAttributeOptionRepository;
+import com.carol.customshop.repository.ProductTypeAttributeRepository;
+import com.carol.customshop.service.CatalogDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogDictionaryTest {
+
+    @Mock
+    private ProductTypeAttributeRepository productTypeAttributeRepository;
+
+    @Mock
+    private ProductTypeAttributeOptionRepository productTypeAttributeOptionRepository;
+
+    @Mock
+    private NotAllowedCombinationRepository notAllowedCombinationRepository;
+
+    private CatalogDictionary dictionary;
+    private Map<Long, ProductTypeAttributeOption> stored;
+    private ProductType productType;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new CatalogDictionary(productTypeAttributeRepository, productTypeAttributeOptionRepository,
+                notAllowedCombinationRepository, 3);
+        productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+        stored = new HashMap<>();
+        for (long id = 1; id <= 5; id++) {
+            stored.put(id, option(id, productType));
+        }
+        lenient().when(productTypeAttributeOptionRepository.findWithAttributeByIdIn(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(stored::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+
+    @Test
+    void shouldLoadOnlyTheMissingIdsInOneQuery() {
+        dictionary.getOptions(List.of(1L, 2L));
+        Map<Long, ProductTypeAttributeOption> options = dictionary.getOptions(List.of(3L, 1L, 2L, 3L, 9L));
+
+        assertEquals(List.of(3L, 1L, 2L), new ArrayList<>(options.keySet()));
+        verify(productTypeAttributeOptionRepository).findWithAttributeByIdIn(Set.of(1L, 2L));
+        verify(productTypeAttributeOptionRepository).findWithAttributeByIdIn(Set.of(3L, 9L));
+        verifyNoMoreInteractions(productTypeAttributeOptionRepository);
+        assertTrue(dictionary.getOption(9L).isEmpty());
+    }
+
+    @Test
+    void shouldDropTheLeastRecentlyUsedEntryWhenFull() {
+        dictionary.getOptions(List.of(1L, 2L, 3L));
+        dictionary.getOption(1L);
+        dictionary.getOption(4L);
+        clearInvocations(productTypeAttributeOptionRepository);
+
+        dictionary.getOptions(List.of(1L, 3L, 4L));
+        verifyNoInteractions(productTypeAttributeOptionRepository);
+        dictionary.getOption(2L);
+        verify(productTypeAttributeOptionRepository).findWithAttributeByIdIn(Set.of(2L));
+    }
+
+    @Test
+    void shouldEvictTheEntriesOfAChangedProductType() {
+        ProductType otherType = new ProductType();
+        otherType.setId(UUID.randomUUID());
+        stored.put(6L, option(6L, otherType));
+        dictionary.getOptions(List.of(1L, 6L));
+
+        dictionary.onCatalogChanged(CatalogChangedEvent.product(UUID.randomUUID()));
+        assertEquals(2, dictionary.size());
+
+        dictionary.onCatalogChanged(CatalogChangedEvent.productType(productType.getId()));
+        assertEquals(1, dictionary.size());
+        clearInvocations(productTypeAttributeOptionRepository);
+        dictionary.getOptions(List.of(1L, 6L));
+        verify(productTypeAttributeOptionRepository).findWithAttributeByIdIn(Set.of(1L));
+    }
+
+    private ProductTypeAttributeOption option(long id, ProductType productType) {
+        ProductTypeAttribute attribute = new ProductTypeAttribute();
+        attribute.setId(100 + id);
+        attribute.setProductType(productType);
+        ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+        option.setId(id);
+        option.setAttribute(attribute);
+        return option;
+    }
+}
@@ -0,0 +1,153 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.dto.AttributeAvailabilityChange;
+import com.carol.customshop.dto.AttributeOption;
+import com.carol.customshop.dto.ConfigurationDeltaResponse;
+import com.carol.customshop.dto.ConfigurationSelectionRequest;
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.ConfigurationSessionService;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConfigurationSessionServiceTest {
+
+    @Mock
+    private ProductConstraintIndexService productConstraintIndexService;
+
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldDropTheLeastRecentlyUsedSessionWhenFull() {
+        // Frame (11, 12) and Wheels (21, 22), no rules
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(compile(List.of()));
+        ConfigurationSessionService service = new ConfigurationSessionService(
+                productConstraintIndexService, 2, Duration.ofMinutes(30));
+
+        UUID first = service.createSession(productId).getSessionId();
+        UUID second = service.createSession(productId).getSessionId();
+        // Using the first session makes the second the least recently used
+        service.updateSelection(first, new ConfigurationSelectionRequest(11L));
+        UUID third = service.createSession(productId).getSessionId();
+
+        assertNotFound(service, second);
+        assertEquals(List.of(11L, 21L),
+                service.updateSelection(first, new ConfigurationSelectionRequest(21L)).getSelectedOptionIds());
+        assertEquals(List.of(12L),
+                service.updateSelection(third, new ConfigurationSelectionRequest(12L)).getSelectedOptionIds());
+    }
+
+    @Test
+    void shouldExpireIdleSessions() throws InterruptedException {
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(compile(List.of()));
+        ConfigurationSessionService service = new ConfigurationSessionService(
+                productConstraintIndexService, 10, Duration.ofMillis(20));
+
+        UUID sessionId = service.createSession(productId).getSessionId();
+        Thread.sleep(50);
+
+        assertNotFound(service, sessionId);
+    }
+
+    @Test
+    void shouldReplayTheSelectionWhenTheRulesChanged() {
+        // Diamond frame (12) and Mountain wheels (21) become not allowed together once the session is open
+        ProductConstraintIndex opened = compile(List.of());
+        when(productConstraintIndexService.getIndex(productId))
+                .thenReturn(opened, opened, compile(List.of(List.of(12L, 21L))));
+        ConfigurationSessionService service = new ConfigurationSessionService(
+                productConstraintIndexService, 10, Duration.ofMinutes(30));
+        UUID sessionId = service.createSession(productId).getSessionId();
+        service.updateSelection(sessionId, new ConfigurationSelectionRequest(12L));
+
+        ConfigurationDeltaResponse delta = service.updateSelection(sessionId, new ConfigurationSelectionRequest(22L));
+
+        assertEquals(List.of(12L, 22L), delta.getSelectedOptionIds());
+        assertEquals(1, delta.getChanges().size());
+        AttributeAvailabilityChange wheels = delta.getChanges().get(0);
+        assertEquals(2L, wheels.getAttributeId());
+        assertEquals(List.of(21L), wheels.getNowUnavailable().stream().map(AttributeOption::getId).toList());
+        assertTrue(wheels.getNowAvailable().isEmpty());
+    }
+
+    @Test
+    void shouldNotFindUnknownOrDeletedSessions() {
+        when(productConstraintIndexService.getIndex(productId)).thenReturn(compile(List.of()));
+        ConfigurationSessionService service = new ConfigurationSessionService(
+                productConstraintIndexService, 10, Duration.ofMinutes(30));
+
+        assertNotFound(service, UUID.randomUUID());
+
+        UUID sessionId = service.createSession(productId).getSessionId();
+        service.deleteSession(sessionId);
+        assertNotFound(service, sessionId);
+    }
+
+    // Mapped to a 404 by the GlobalExceptionHandler
+    private void assertNotFound(ConfigurationSessionService service, UUID sessionId) {
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.updateSelection(sessionId, new ConfigurationSelectionRequest(11L)));
+        assertEquals("Configuration session not found or expired: " + sessionId, exception.getMessage());
+    }
+
+    // Attributes 1 (options 11, 12) and 2 (options 21, 22)
+    private ProductConstraintIndex compile(List<List<Long>> rules) {
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+
+        Map<Long, ProductTypeAttributeOption> optionsById = new HashMap<>();
+        for (long attributeId = 1; attributeId <= 2; attributeId++) {
+            ProductTypeAttribute attribute = new ProductTypeAttribute();
+            attribute.setId(attributeId);
+            attribute.setAttributeName("Attribute " + attributeId);
+            attribute.setProductType(productType);
+            for (long optionId = 10 * attributeId + 1; optionId <= 10 * attributeId + 2; optionId++) {
+                ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+                option.setId(optionId);
+                option.setName("Option " + optionId);
+                option.setAttribute(attribute);
+                attribute.getOptions().add(option);
+                optionsById.put(optionId, option);
+            }
+            productType.getAttributes().add(attribute);
+        }
+
+        long combinationId = 1;
+        for (List<Long> rule : rules) {
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(combinationId++);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (Long optionId : rule) {
+                NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+                element.setNotAllowedCombination(combination);
+                element.setAttribute(optionsById.get(optionId).getAttribute());
+                element.setAttributeOption(optionsById.get(optionId));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+        }
+
+        Product product = new Product();
+        product.setId(productId);
+        product.setProductType(productType);
+        return ProductConstraintIndex.compile(product, List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+    }
+}
@@ -0,0 +1,126 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.constraint.ConfigurationSpaceAnalysis;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationSpaceAnalysisTest {
+
+    /**
+     * Frame (11, 12), Wheels (21, 22) and an unrelated Rim Color (31, 32, 33). Diamond (12) is not allowed with
+     * either wheel, so it can never be part of a complete bicycle.
+     */
+    @Test
+    void shouldCountConfigurationsAndFindDeadOptions() {
+        ProductType productType = productType(List.of(List.of(12L, 21L), List.of(12L, 22L)));
+
+        ConfigurationSpaceAnalysis analysis =
+                ConfigurationSpaceAnalysis.analyze(ProductConstraintIndex.compile(productType), 1000);
+
+        assertTrue(analysis.isComplete());
+        // Frame 11 with either wheel, times three rim colors
+        assertEquals(BigInteger.valueOf(6), analysis.getValidConfigurationCount());
+        assertEquals(Set.of(12L), analysis.getDeadOptionIds());
+    }
+
+    @Test
+    void shouldGiveUpWhenBudgetIsExhausted() {
+        ProductType productType = productType(List.of(List.of(12L, 21L)));
+
+        ConfigurationSpaceAnalysis analysis =
+                ConfigurationSpaceAnalysis.analyze(ProductConstraintIndex.compile(productType), 2);
+
+        assertFalse(analysis.isComplete());
+        assertNull(analysis.getValidConfigurationCount());
+        assertEquals(Set.of(), analysis.getDeadOptionIds());
+    }
+
+    @Test
+    void shouldMakeDeadOptionsUnavailableAndDropTheirCombinations() {
+        ProductType productType = productType(List.of(List.of(12L, 21L), List.of(12L, 22L), List.of(12L, 31L)));
+        ProductConstraintIndex index = ProductConstraintIndex.compile(productType);
+
+        ProductConstraintIndex pruned = index.withoutDeadOptions(Set.of(12L));
+
+        int frame = pruned.attributeIndexOf(1L);
+        int rimColor = pruned.attributeIndexOf(3L);
+        assertEquals(List.of(11L),
+                optionIds(pruned, pruned.availableOptions(frame, pruned.encodeSelection(List.of()))));
+        // The combination with rim color 31 relied on Diamond, so it no longer applies
+        assertEquals(List.of(31L, 32L, 33L),
+                optionIds(pruned, pruned.availableOptions(rimColor, pruned.encodeSelection(List.of(12L)))));
+    }
+
+    @Test
+    void shouldKeepCombinationsOfOptionsThatAreOnlyUnavailable() {
+        ProductType productType = productType(List.of(List.of(12L, 21L), List.of(12L, 22L), List.of(22L, 31L)));
+        Product product = new Product();
+        product.setProductType(productType);
+        // Wheels 22 is out of stock, which is not the same as dead
+        ProductConstraintIndex index =
+                ProductConstraintIndex.compile(product, List.of(), Set.of(), Set.of(), Set.of(22L), Set.of());
+
+        ProductConstraintIndex pruned = index.withoutDeadOptions(Set.of(12L));
+
+        int rimColor = pruned.attributeIndexOf(3L);
+        // A stale selection holding the out-of-stock wheel still excludes its partner
+        assertEquals(List.of(32L, 33L),
+                optionIds(pruned, pruned.availableOptions(rimColor, pruned.encodeSelection(List.of(22L)))));
+        assertEquals(List.of(31L, 32L, 33L),
+                optionIds(pruned, pruned.availableOptions(rimColor, pruned.encodeSelection(List.of(21L)))));
+    }
+
+    private List<Long> optionIds(ProductConstraintIndex index, int[] ordinals) {
+        return Arrays.stream(ordinals).mapToObj(index::optionId).toList();
+    }
+
+    private ProductType productType(List<List<Long>> rules) {
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+
+        Map<Long, ProductTypeAttributeOption> optionsById = new HashMap<>();
+        attribute(productType, 1L, "Frame", optionsById, 11L, 12L);
+        attribute(productType, 2L, "Wheels", optionsById, 21L, 22L);
+        attribute(productType, 3L, "Rim Color", optionsById, 31L, 32L, 33L);
+
+        long combinationId = 1;
+        for (List<Long> rule : rules) {
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(combinationId++);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (Long optionId : rule) {
+                NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+                element.setNotAllowedCombination(combination);
+                element.setAttribute(optionsById.get(optionId).getAttribute());
+                element.setAttributeOption(optionsById.get(optionId));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+        }
+        return productType;
+    }
+
+    private void attribute(ProductType productType, Long id, String name,
+                           Map<Long, ProductTypeAttributeOption> optionsById, Long... optionIds) {
+        ProductTypeAttribute attribute = new ProductTypeAttribute();
+        attribute.setId(id);
+        attribute.setAttributeName(name);
+        attribute.setProductType(productType);
+        for (Long optionId : optionIds) {
+            ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+            option.setId(optionId);
+            option.setName(name + " " + optionId);
+            option.setAttribute(attribute);
+            attribute.getOptions().add(option);
+            optionsById.put(optionId, option);
+        }
+        productType.getAttributes().add(attribute);
+    }
+}
@@ -0,0 +1,185 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.constraint.ConfigurationState;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationStateTest {
+
+    @Test
+    void shouldReportOnlyOptionsWhoseAvailabilityChanged() {
+        // Frame (11, 12) and Wheels (21, 22); Diamond (12) + Mountain wheels (21) are not allowed together
+        ProductConstraintIndex index = compile(2, 2, List.of(List.of(12L, 21L)));
+        ConfigurationState state = new ConfigurationState(index);
+
+        assertEquals(List.of(21L), optionIds(index, state.select(12L)));
+        assertFalse(state.isAvailable(ordinalOf(index, 21L)));
+
+        // Switching frame releases the wheels and blocks nothing else
+        assertEquals(List.of(21L), optionIds(index, state.select(11L)));
+        assertTrue(state.isAvailable(ordinalOf(index, 21L)));
+
+        assertEquals(List.of(), optionIds(index, state.deselect(11L)));
+        assertEquals(List.of(), state.selectedOptionIds());
+    }
+
+    @Test
+    void shouldRejectUnavailableOrUnselectedOptions() {
+        ProductConstraintIndex index = compile(2, 2, List.of(List.of(12L, 21L)));
+        ConfigurationState state = new ConfigurationState(index);
+        state.select(12L);
+
+        IllegalArgumentException unavailable = assertThrows(IllegalArgumentException.class, () -> state.select(21L));
+        assertEquals("Option is not available for the current selection: 21", unavailable.getMessage());
+
+        IllegalArgumentException notSelected = assertThrows(IllegalArgumentException.class, () -> state.deselect(22L));
+        assertEquals("Option is not selected: 22", notSelected.getMessage());
+    }
+
+    @Test
+    void shouldMatchFullEvaluationAfterEveryStep() {
+        Random random = new Random(7);
+        ProductConstraintIndex index = compile(6, 6, randomRules(random, 6, 6, 120));
+        ConfigurationState state = new ConfigurationState(index);
+
+        Map<Integer, Boolean> availability = fullEvaluation(index, state.selectedOptionIds());
+        for (int step = 0; step < 400; step++) {
+            List<Long> selected = state.selectedOptionIds();
+            int[] changed;
+            if (!selected.isEmpty() && random.nextInt(3) == 0) {
+                changed = state.deselect(selected.get(random.nextInt(selected.size())));
+            } else {
+                int attribute = random.nextInt(index.attributeCount());
+                int[] candidates = state.availableOptions(attribute);
+                if (candidates.length == 0) {
+                    continue;
+                }
+                changed = state.select(index.optionId(candidates[random.nextInt(candidates.length)]));
+            }
+
+            Map<Integer, Boolean> expected = fullEvaluation(index, state.selectedOptionIds());
+            Set<Integer> expectedChanges = new TreeSet<>();
+            expected.forEach((ordinal, available) -> {
+                assertEquals(available, state.isAvailable(ordinal));
+                if (!available.equals(availability.get(ordinal))) {
+                    expectedChanges.add(ordinal);
+                }
+            });
+
+            Set<Integer> reported = new TreeSet<>();
+            Arrays.stream(changed).forEach(reported::add);
+            assertEquals(expectedChanges, reported);
+            availability.putAll(expected);
+        }
+    }
+
+    // Availability of every option as computed from scratch by the compiled index
+    private Map<Integer, Boolean> fullEvaluation(ProductConstraintIndex index, List<Long> selectedOptionIds) {
+        Map<Integer, Boolean> availability = new HashMap<>();
+        long[] selection = index.encodeSelection(selectedOptionIds);
+        for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+            Set<Integer> available = new HashSet<>();
+            Arrays.stream(index.availableOptions(attribute, index.withoutAttribute(selection, attribute)))
+                    .forEach(available::add);
+            for (int ordinal : allOptions(index, attribute)) {
+                availability.put(ordinal, available.contains(ordinal));
+            }
+        }
+        return availability;
+    }
+
+    private List<List<Long>> randomRules(Random random, int attributes, int options, int count) {
+        List<List<Long>> rules = new ArrayList<>();
+        for (int rule = 0; rule < count; rule++) {
+            List<Integer> attributeOrder = new ArrayList<>();
+            for (int attribute = 0; attribute < attributes; attribute++) {
+                attributeOrder.add(attribute);
+            }
+            Collections.shuffle(attributeOrder, random);
+
+            List<Long> optionIds = new ArrayList<>();
+            for (int attribute : attributeOrder.subList(0, 2 + random.nextInt(2))) {
+                optionIds.add(optionIdsOf(attribute)[random.nextInt(options)]);
+            }
+            rules.add(optionIds);
+        }
+        return rules;
+    }
+
+    private ProductConstraintIndex compile(int attributes, int options, List<List<Long>> rules) {
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+
+        Map<Long, ProductTypeAttributeOption> optionsById = new HashMap<>();
+        for (int attributeIndex = 0; attributeIndex < attributes; attributeIndex++) {
+            ProductTypeAttribute attribute = new ProductTypeAttribute();
+            attribute.setId((long) attributeIndex + 1);
+            attribute.setAttributeName("Attribute " + (attributeIndex + 1));
+            attribute.setProductType(productType);
+            for (long optionId : Arrays.copyOf(optionIdsOf(attributeIndex), options)) {
+                ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+                option.setId(optionId);
+                option.setName("Option " + optionId);
+                option.setAttribute(attribute);
+                attribute.getOptions().add(option);
+                optionsById.put(optionId, option);
+            }
+            productType.getAttributes().add(attribute);
+        }
+
+        long combinationId = 1;
+        for (List<Long> rule : rules) {
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(combinationId++);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (Long optionId : rule) {
+                NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+                element.setNotAllowedCombination(combination);
+                element.setAttribute(optionsById.get(optionId).getAttribute());
+                element.setAttributeOption(optionsById.get(optionId));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+        }
+
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductType(productType);
+        return ProductConstraintIndex.compile(product, List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+    }
+
+    // Attribute n (0-based) has options 10 * (n + 1) + 1, 10 * (n + 1) + 2, ...
+    private long[] optionIdsOf(int attribute) {
+        long[] optionIds = new long[9];
+        for (int option = 0; option < optionIds.length; option++) {
+            optionIds[option] = 10L * (attribute + 1) + option + 1;
+        }
+        return optionIds;
+    }
+
+    // Without overrides nor selection every option is available
+    private int[] allOptions(ProductConstraintIndex index, int attribute) {
+        return index.availableOptions(attribute, index.encodeSelection(List.of()));
+    }
+
+    private int ordinalOf(ProductConstraintIndex index, long optionId) {
+        for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+            for (int ordinal : allOptions(index, attribute)) {
+                if (index.optionId(ordinal) == optionId) {
+                    return ordinal;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown option " + optionId);
+    }
+
+    private List<Long> optionIds(ProductConstraintIndex index, int[] ordinals) {
+        return Arrays.stream(ordinals).sorted().mapToObj(index::optionId).toList();
+    }
+}
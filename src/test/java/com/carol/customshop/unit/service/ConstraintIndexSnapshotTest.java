@@ -0,0 +1,110 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.constraint.ConstraintIndexSnapshot;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstraintIndexSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRestoreIndexesAnsweringLikeTheOriginals() throws IOException {
+        Random random = new Random(3);
+        ProductConstraintIndex original = compile(random);
+        Path path = directory.resolve("indexes.snapshot");
+
+        new ConstraintIndexSnapshot(42, List.of(original)).write(path);
+        ConstraintIndexSnapshot snapshot = ConstraintIndexSnapshot.read(path);
+
+        assertEquals(42, snapshot.getCatalogVersion());
+        ProductConstraintIndex restored = snapshot.getIndexes().get(0);
+        assertEquals(original.getProductId(), restored.getProductId());
+        assertEquals(original.getProductTypeId(), restored.getProductTypeId());
+        assertEquals(original.attributeName(1), restored.attributeName(1));
+
+        for (int query = 0; query < 300; query++) {
+            int requested = random.nextInt(original.attributeCount());
+            List<Long> selected = new ArrayList<>();
+            for (int attribute = 0; attribute < original.attributeCount(); attribute++) {
+                if (attribute != requested && random.nextBoolean()) {
+                    selected.add(optionId(attribute, random.nextInt(4)));
+                }
+            }
+            assertArrayEquals(
+                    original.availableOptions(requested, original.encodeSelection(selected, requested)),
+                    restored.availableOptions(requested, restored.encodeSelection(selected, requested)));
+        }
+    }
+
+    @Test
+    void shouldRejectCorruptSnapshot() throws IOException {
+        Path path = directory.resolve("indexes.snapshot");
+        new ConstraintIndexSnapshot(1, List.of(compile(new Random(5)))).write(path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> ConstraintIndexSnapshot.read(path));
+    }
+
+    // Option k of attribute n (0-based) has ID 10 * (n + 1) + k + 1
+    private long optionId(int attribute, int option) {
+        return 10L * (attribute + 1) + option + 1;
+    }
+
+    private ProductConstraintIndex compile(Random random) {
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+
+        List<ProductTypeAttribute> attributes = new ArrayList<>();
+        for (int attributeIndex = 0; attributeIndex < 5; attributeIndex++) {
+            ProductTypeAttribute attribute = new ProductTypeAttribute();
+            attribute.setId((long) attributeIndex + 1);
+            attribute.setAttributeName("Attribute " + (attributeIndex + 1));
+            attribute.setProductType(productType);
+            for (int option = 0; option < 4; option++) {
+                ProductTypeAttributeOption attributeOption = new ProductTypeAttributeOption();
+                attributeOption.setId(optionId(attributeIndex, option));
+                attributeOption.setName("Option " + attributeOption.getId());
+                attributeOption.setAttribute(attribute);
+                attribute.getOptions().add(attributeOption);
+            }
+            productType.getAttributes().add(attribute);
+            attributes.add(attribute);
+        }
+
+        for (long combinationId = 1; combinationId <= 30; combinationId++) {
+            List<ProductTypeAttribute> shuffled = new ArrayList<>(attributes);
+            Collections.shuffle(shuffled, random);
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(combinationId);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (ProductTypeAttribute attribute : shuffled.subList(0, 2 + random.nextInt(2))) {
+                NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+                element.setNotAllowedCombination(combination);
+                element.setAttribute(attribute);
+                element.setAttributeOption(attribute.getOptions().get(random.nextInt(4)));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+        }
+
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductType(productType);
+        return ProductConstraintIndex.compile(product, List.of(), Set.of(2L), Set.of(11L), Set.of(32L), Set.of());
+    }
+}
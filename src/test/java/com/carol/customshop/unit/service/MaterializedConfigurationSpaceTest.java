@@ -0,0 +1,108 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.constraint.MaterializedConfigurationSpace;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaterializedConfigurationSpaceTest {
+
+    @Test
+    void shouldCountSelectionsOverAllRequestedAttributes() {
+        // Three attributes of two options: each requested attribute sees 3 x 3 selections of the other two
+        ProductConstraintIndex index = compile(3, 2, List.of(), new Random(1));
+
+        assertEquals(27, MaterializedConfigurationSpace.selectionCount(index));
+    }
+
+    @Test
+    void shouldSkipAttributesThatNeverChangeTheAnswer() {
+        ProductConstraintIndex index = compile(4, 3, List.of(List.of(0, 1)), new Random(1));
+
+        MaterializedConfigurationSpace space = MaterializedConfigurationSpace.build(index);
+
+        // One rule between the first two attributes: one decision node for each of them, nothing else
+        assertEquals(2, space.nodeCount());
+    }
+
+    @Test
+    void shouldMatchOnTheFlyEvaluationForEverySelection() {
+        Random random = new Random(11);
+        List<List<Integer>> ruleAttributes = new ArrayList<>();
+        for (int rule = 0; rule < 40; rule++) {
+            List<Integer> attributes = new ArrayList<>(List.of(0, 1, 2, 3, 4));
+            Collections.shuffle(attributes, random);
+            ruleAttributes.add(attributes.subList(0, 2 + random.nextInt(2)));
+        }
+        ProductConstraintIndex index = compile(5, 3, ruleAttributes, random);
+        MaterializedConfigurationSpace space = MaterializedConfigurationSpace.build(index);
+
+        for (int query = 0; query < 1000; query++) {
+            int requested = random.nextInt(index.attributeCount());
+            List<Long> selected = new ArrayList<>();
+            for (int attribute = 0; attribute < index.attributeCount(); attribute++) {
+                if (attribute != requested && random.nextBoolean()) {
+                    selected.add(optionId(attribute, random.nextInt(3)));
+                }
+            }
+            long[] selection = index.encodeSelection(selected, requested);
+
+            assertArrayEquals(index.availableOptions(requested, selection),
+                    space.availableOptions(requested, selection));
+        }
+    }
+
+    // Option k of attribute n (0-based) has ID 10 * (n + 1) + k + 1
+    private long optionId(int attribute, int option) {
+        return 10L * (attribute + 1) + option + 1;
+    }
+
+    private ProductConstraintIndex compile(
+            int attributes, int options, List<List<Integer>> ruleAttributes, Random random) {
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+
+        List<ProductTypeAttribute> created = new ArrayList<>();
+        for (int attributeIndex = 0; attributeIndex < attributes; attributeIndex++) {
+            ProductTypeAttribute attribute = new ProductTypeAttribute();
+            attribute.setId((long) attributeIndex + 1);
+            attribute.setAttributeName("Attribute " + (attributeIndex + 1));
+            attribute.setProductType(productType);
+            for (int option = 0; option < options; option++) {
+                ProductTypeAttributeOption attributeOption = new ProductTypeAttributeOption();
+                attributeOption.setId(optionId(attributeIndex, option));
+                attributeOption.setName("Option " + attributeOption.getId());
+                attributeOption.setAttribute(attribute);
+                attribute.getOptions().add(attributeOption);
+            }
+            productType.getAttributes().add(attribute);
+            created.add(attribute);
+        }
+
+        long combinationId = 1;
+        for (List<Integer> rule : ruleAttributes) {
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(combinationId++);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (int attributeIndex : rule) {
+                ProductTypeAttribute attribute = created.get(attributeIndex);
+                NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+                element.setNotAllowedCombination(combination);
+                element.setAttribute(attribute);
+                element.setAttributeOption(attribute.getOptions().get(random.nextInt(options)));
+                elements.add(element);
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+        }
+
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductType(productType);
+        return ProductConstraintIndex.compile(product, List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+    }
+}
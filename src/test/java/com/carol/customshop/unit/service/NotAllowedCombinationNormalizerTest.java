@@ -0,0 +1,69 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer.PrunedCombination;
+import com.carol.customshop.service.constraint.NotAllowedCombinationNormalizer.Reason;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotAllowedCombinationNormalizerTest {
+
+    @Test
+    void shouldPruneDuplicatesAndSupersetsOfExistingCombinations() {
+        Map<Long, Set<Long>> existing = Map.of(1L, Set.of(11L, 21L));
+
+        NotAllowedCombinationNormalizer.Result<Long> result = NotAllowedCombinationNormalizer.normalize(
+                existing,
+                List.of(Set.of(21L, 11L), Set.of(11L, 21L, 31L), Set.of(12L, 22L))
+        );
+
+        assertEquals(List.of(2), result.kept());
+        assertEquals(List.of(
+                new PrunedCombination(0, Set.of(11L, 21L), Reason.DUPLICATE),
+                new PrunedCombination(1, Set.of(11L, 21L, 31L), Reason.SUBSUMED)
+        ), result.pruned());
+        assertEquals(Set.of(), result.superseded());
+    }
+
+    @Test
+    void shouldPruneSupersetsWithinTheSameBatchWhateverTheirOrder() {
+        NotAllowedCombinationNormalizer.Result<Long> result = NotAllowedCombinationNormalizer.normalize(
+                Map.of(),
+                List.of(Set.of(11L, 21L, 31L), Set.of(11L, 21L), Set.of(11L, 21L))
+        );
+
+        assertEquals(List.of(1), result.kept());
+        assertEquals(List.of(Reason.SUBSUMED, Reason.DUPLICATE),
+                result.pruned().stream().map(PrunedCombination::reason).toList());
+    }
+
+    @Test
+    void shouldReportExistingCombinationsSupersededByNewOnes() {
+        Map<Long, Set<Long>> existing = Map.of(1L, Set.of(11L, 21L, 31L), 2L, Set.of(12L, 22L));
+
+        NotAllowedCombinationNormalizer.Result<Long> result = NotAllowedCombinationNormalizer.normalize(
+                existing, List.of(Set.of(11L, 31L)));
+
+        assertEquals(List.of(0), result.kept());
+        assertTrue(result.pruned().isEmpty());
+        assertEquals(Set.of(1L), result.superseded());
+    }
+
+    @Test
+    void shouldReportCombinationsKeptApartThatRepeatOrExtendAddedOnes() {
+        // Product-level combinations: the first repeats the added type combination, the second extends it
+        Map<Long, Set<Long>> productCombinations = new LinkedHashMap<>();
+        productCombinations.put(5L, Set.of(11L, 31L));
+        productCombinations.put(6L, Set.of(11L, 22L, 31L));
+        productCombinations.put(7L, Set.of(11L, 22L));
+
+        assertEquals(Set.of(5L, 6L),
+                NotAllowedCombinationNormalizer.superseded(productCombinations, List.of(Set.of(11L, 31L))));
+    }
+}
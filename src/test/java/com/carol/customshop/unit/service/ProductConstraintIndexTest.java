@@ -0,0 +1,238 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.entity.*;
+import com.carol.customshop.service.constraint.ProductConstraintIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductConstraintIndexTest {
+
+    private Product product;
+    private ProductNotAllowedCombination productCombination;
+
+    /**
+     * Bicycle with Frame (Full-suspension 11, Diamond 12), Wheels (Mountain 21, Road 22) and Rim Color (Red 31,
+     * Black 32). The type forbids Diamond + Mountain (combination 100), the product forbids
+     * Full-suspension + Road + Black.
+     */
+    @BeforeEach
+    void setUp() {
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+        productType.setConfig(new ProductTypeConfig("fully_customizable"));
+
+        ProductTypeAttribute frame = attribute(productType, 1L, "Frame", 11L, 12L);
+        ProductTypeAttribute wheels = attribute(productType, 2L, "Wheels", 21L, 22L);
+        ProductTypeAttribute rimColor = attribute(productType, 3L, "Rim Color", 31L, 32L);
+
+        NotAllowedCombination typeCombination = new NotAllowedCombination();
+        typeCombination.setId(100L);
+        typeCombination.setProductType(productType);
+        typeCombination.setOptions(List.of(
+                typeElement(typeCombination, frame.getOptions().get(1)),
+                typeElement(typeCombination, wheels.getOptions().get(0))
+        ));
+        productType.getNotAllowedCombinations().add(typeCombination);
+
+        product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductType(productType);
+
+        productCombination = new ProductNotAllowedCombination();
+        productCombination.setId(200L);
+        productCombination.setProduct(product);
+        productCombination.setOptions(List.of(
+                new ProductNotAllowedCombinationElement(frame, frame.getOptions().get(0)),
+                new ProductNotAllowedCombinationElement(wheels, wheels.getOptions().get(1)),
+                new ProductNotAllowedCombinationElement(rimColor, rimColor.getOptions().get(1))
+        ));
+    }
+
+    @Test
+    void shouldForbidOptionCompletingTypeCombination() {
+        ProductConstraintIndex index = compile(Set.of(), Set.of(), Set.of(), Set.of());
+
+        assertEquals(List.of(22L), available(index, 2L, List.of(12L)));
+        assertEquals(List.of(21L, 22L), available(index, 2L, List.of(11L)));
+    }
+
+    @Test
+    void shouldForbidOptionOnlyWhenProductCombinationIsComplete() {
+        ProductConstraintIndex index = compile(Set.of(), Set.of(), Set.of(), Set.of());
+
+        assertEquals(List.of(31L, 32L), available(index, 3L, List.of(11L)));
+        assertEquals(List.of(31L), available(index, 3L, List.of(11L, 22L)));
+    }
+
+    @Test
+    void shouldExcludeDeactivatedAndOutOfStockOptions() {
+        ProductConstraintIndex index = compile(Set.of(), Set.of(21L), Set.of(31L), Set.of());
+
+        assertEquals(List.of(22L), available(index, 2L, List.of()));
+        assertEquals(List.of(), available(index, 3L, List.of(11L, 22L)));
+    }
+
+    @Test
+    void shouldReturnNoOptionsForDeactivatedAttribute() {
+        ProductConstraintIndex index = compile(Set.of(2L), Set.of(), Set.of(), Set.of());
+
+        assertEquals(List.of(), available(index, 2L, List.of()));
+    }
+
+    @Test
+    void shouldIgnoreDeactivatedTypeCombination() {
+        ProductConstraintIndex index = compile(Set.of(), Set.of(), Set.of(), Set.of(100L));
+
+        assertEquals(List.of(21L, 22L), available(index, 2L, List.of(12L)));
+    }
+
+    @Test
+    void shouldEvaluateAttributeAgainstSelectionWithoutItsOwnOption() {
+        ProductConstraintIndex index = compile(Set.of(), Set.of(), Set.of(), Set.of());
+        int wheels = index.attributeIndexOf(2L);
+
+        long[] selection = index.encodeSelection(List.of(12L, 21L));
+        int[] available = index.availableOptions(wheels, index.withoutAttribute(selection, wheels));
+
+        assertEquals(List.of(22L), Arrays.stream(available).mapToObj(index::optionId).toList());
+    }
+
+    @Test
+    void shouldRejectInvalidSelections() {
+        ProductConstraintIndex index = compile(Set.of(), Set.of(), Set.of(), Set.of());
+        int wheels = index.attributeIndexOf(2L);
+
+        IllegalArgumentException sameAttribute = assertThrows(IllegalArgumentException.class,
+                () -> index.encodeSelection(List.of(11L, 12L), wheels));
+        assertEquals("Multiple options selected for the same attribute: 1", sameAttribute.getMessage());
+
+        IllegalArgumentException requestedAttribute = assertThrows(IllegalArgumentException.class,
+                () -> index.encodeSelection(List.of(21L), wheels));
+        assertEquals("Selected option belongs to the requested attribute: 21", requestedAttribute.getMessage());
+
+        IllegalArgumentException unknownOption = assertThrows(IllegalArgumentException.class,
+                () -> index.encodeSelection(List.of(999L), wheels));
+        assertEquals("Invalid option ID: 999", unknownOption.getMessage());
+
+        assertEquals(-1, index.attributeIndexOf(999L));
+    }
+
+    @Test
+    void shouldMatchLinearEvaluationOnLargeRuleSet() {
+        Random random = new Random(42);
+
+        ProductType productType = new ProductType();
+        productType.setId(UUID.randomUUID());
+        List<ProductTypeAttribute> attributes = new ArrayList<>();
+        for (long attributeId = 1; attributeId <= 8; attributeId++) {
+            Long[] optionIds = new Long[10];
+            for (int option = 0; option < optionIds.length; option++) {
+                optionIds[option] = attributeId * 100 + option;
+            }
+            attributes.add(attribute(productType, attributeId, "Attribute " + attributeId, optionIds));
+        }
+
+        List<Set<Long>> rules = new ArrayList<>();
+        for (long combinationId = 1; combinationId <= 300; combinationId++) {
+            List<ProductTypeAttribute> shuffled = new ArrayList<>(attributes);
+            Collections.shuffle(shuffled, random);
+
+            NotAllowedCombination combination = new NotAllowedCombination();
+            combination.setId(combinationId);
+            List<NotAllowedCombinationElement> elements = new ArrayList<>();
+            for (ProductTypeAttribute attribute : shuffled.subList(0, 2 + random.nextInt(3))) {
+                elements.add(typeElement(combination, attribute.getOptions().get(random.nextInt(10))));
+            }
+            combination.setOptions(elements);
+            productType.getNotAllowedCombinations().add(combination);
+            rules.add(elements.stream()
+                    .map(element -> element.getAttributeOption().getId())
+                    .collect(Collectors.toSet()));
+        }
+
+        Product largeProduct = new Product();
+        largeProduct.setId(UUID.randomUUID());
+        largeProduct.setProductType(productType);
+        ProductConstraintIndex index = ProductConstraintIndex.compile(
+                largeProduct, List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+
+        for (int query = 0; query < 500; query++) {
+            ProductTypeAttribute requested = attributes.get(random.nextInt(attributes.size()));
+            List<Long> selected = new ArrayList<>();
+            for (ProductTypeAttribute attribute : attributes) {
+                if (attribute != requested && random.nextBoolean()) {
+                    selected.add(attribute.getOptions().get(random.nextInt(10)).getId());
+                }
+            }
+
+            // Reference: an option is forbidden when selecting it completes a rule
+            List<Long> expected = requested.getOptions().stream()
+                    .map(ProductTypeAttributeOption::getId)
+                    .filter(optionId -> rules.stream().noneMatch(rule -> {
+                        Set<Long> candidate = new HashSet<>(selected);
+                        candidate.add(optionId);
+                        return rule.contains(optionId) && candidate.containsAll(rule);
+                    }))
+                    .toList();
+
+            assertEquals(expected, available(index, requested.getId(), selected));
+        }
+    }
+
+    private ProductConstraintIndex compile(
+            Set<Long> deactivatedAttributes,
+            Set<Long> deactivatedOptions,
+            Set<Long> outOfStockOptions,
+            Set<Long> deactivatedCombinations
+    ) {
+        return ProductConstraintIndex.compile(
+                product,
+                List.of(productCombination),
+                deactivatedAttributes,
+                deactivatedOptions,
+                outOfStockOptions,
+                deactivatedCombinations
+        );
+    }
+
+    private List<Long> available(ProductConstraintIndex index, Long attributeId, List<Long> selectedOptionIds) {
+        int attribute = index.attributeIndexOf(attributeId);
+        long[] selection = index.encodeSelection(selectedOptionIds, attribute);
+        return Arrays.stream(index.availableOptions(attribute, selection))
+                .mapToObj(index::optionId)
+                .toList();
+    }
+
+    private ProductTypeAttribute attribute(ProductType productType, Long id, String name, Long... optionIds) {
+        ProductTypeAttribute attribute = new ProductTypeAttribute();
+        attribute.setId(id);
+        attribute.setAttributeName(name);
+        attribute.setProductType(productType);
+
+        List<ProductTypeAttributeOption> options = new ArrayList<>();
+        for (Long optionId : optionIds) {
+            ProductTypeAttributeOption option = new ProductTypeAttributeOption();
+            option.setId(optionId);
+            option.setName(name + " " + optionId);
+            option.setAttribute(attribute);
+            options.add(option);
+        }
+        attribute.setOptions(options);
+        productType.getAttributes().add(attribute);
+        return attribute;
+    }
+
+    private NotAllowedCombinationElement typeElement(
+            NotAllowedCombination combination, ProductTypeAttributeOption option) {
+        NotAllowedCombinationElement element = new NotAllowedCombinationElement();
+        element.setNotAllowedCombination(combination);
+        element.setAttribute(option.getAttribute());
+        element.setAttributeOption(option);
+        return element;
+    }
+}
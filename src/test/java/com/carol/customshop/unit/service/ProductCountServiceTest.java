@@ -0,0 +1,70 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.event.CatalogChangedEvent;
+import com.carol.customshop.repository.ProductCountEstimateRepository;
+import com.carol.customshop.repository.ProductRepository;
+import com.carol.customshop.service.ProductCountService;
+import com.carol.customshop.service.ProductCountStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCountServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCountEstimateRepository productCountEstimateRepository;
+
+    private ProductCountService productCountService;
+
+    @BeforeEach
+    void setUp() {
+        productCountService = new ProductCountService(productRepository, productCountEstimateRepository);
+    }
+
+    @Test
+    void shouldKeepCachedCountUntilAProductChanges() {
+        when(productRepository.count()).thenReturn(7L, 8L);
+
+        assertEquals(OptionalLong.of(7), productCountService.count(ProductCountStrategy.CACHED));
+        assertEquals(OptionalLong.of(7), productCountService.count(ProductCountStrategy.CACHED));
+        productCountService.onCatalogChanged(CatalogChangedEvent.productType(UUID.randomUUID()));
+        assertEquals(OptionalLong.of(7), productCountService.count(ProductCountStrategy.CACHED));
+
+        productCountService.onCatalogChanged(CatalogChangedEvent.product(UUID.randomUUID()));
+        assertEquals(OptionalLong.of(8), productCountService.count(ProductCountStrategy.CACHED));
+        verify(productRepository, times(2)).count();
+    }
+
+    @Test
+    void shouldFallBackToExactCountWhenNoEstimateIsAvailable() {
+        when(productRepository.count()).thenReturn(5L);
+        when(productCountEstimateRepository.estimateProductCount())
+                .thenReturn(Optional.of(1000L), Optional.empty())
+                .thenThrow(new BadSqlGrammarException("estimate", "SELECT", new SQLException("pg_class")));
+
+        assertEquals(OptionalLong.of(1000), productCountService.count(ProductCountStrategy.ESTIMATED));
+        // Never analyzed
+        assertEquals(OptionalLong.of(5), productCountService.count(ProductCountStrategy.ESTIMATED));
+        // Not PostgreSQL: estimates are not attempted again
+        assertEquals(OptionalLong.of(5), productCountService.count(ProductCountStrategy.ESTIMATED));
+        assertEquals(OptionalLong.of(5), productCountService.count(ProductCountStrategy.ESTIMATED));
+        verify(productCountEstimateRepository, times(3)).estimateProductCount();
+
+        assertEquals(OptionalLong.empty(), productCountService.count(ProductCountStrategy.NONE));
+    }
+}
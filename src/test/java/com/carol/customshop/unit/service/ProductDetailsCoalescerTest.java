@@ -0,0 +1,97 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.dto.ProductDetailsCustomerResponse;
+import com.carol.customshop.service.ProductDetailsCoalescer;
+import com.carol.customshop.service.ProductSection;
+import com.carol.customshop.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDetailsCoalescerTest {
+
+    @Mock
+    private ProductService productService;
+
+    private ProductDetailsCoalescer coalescer;
+    private ExecutorService executor;
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new ProductDetailsCoalescer(productService, new SimpleMeterRegistry());
+        executor = Executors.newSingleThreadExecutor();
+        productId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // Joining the read in flight would block until it is released, hence the timeout
+    @Test
+    @Timeout(value = 10, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    void shouldNotShareAReadWithRequestsForAnotherVersionOrBaseUrl() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productService.getProductDetailsForCustomer(productId, ProductSection.CUSTOMER_DETAILS))
+                .thenAnswer(invocation -> {
+                    reading.countDown();
+                    release.await();
+                    return details("Cruiser");
+                })
+                .thenReturn(details("Tourer"))
+                .thenReturn(details("Tourer via proxy"));
+
+        // A read of version 1 is in flight when the request for version 2 arrives
+        Future<ProductDetailsCustomerResponse> stale = executor.submit(() -> {
+            onHost("shop.example.com");
+            return coalescer.getProductDetailsForCustomer(productId, 1L, ProductSection.CUSTOMER_DETAILS);
+        });
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        onHost("shop.example.com");
+        assertEquals("Tourer",
+                coalescer.getProductDetailsForCustomer(productId, 2L, ProductSection.CUSTOMER_DETAILS).getName());
+        onHost("cdn.example.com");
+        assertEquals("Tourer via proxy",
+                coalescer.getProductDetailsForCustomer(productId, 1L, ProductSection.CUSTOMER_DETAILS).getName());
+
+        release.countDown();
+        assertEquals("Cruiser", stale.get(5, TimeUnit.SECONDS).getName());
+    }
+
+    private static void onHost(String host) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName(host);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static ProductDetailsCustomerResponse details(String name) {
+        ProductDetailsCustomerResponse details = new ProductDetailsCustomerResponse();
+        details.setName(name);
+        return details;
+    }
+}
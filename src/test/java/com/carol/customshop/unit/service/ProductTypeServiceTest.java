@@ -6,13 +6,16 @@ import com.carol.customshop.entity.ProductType;
 import com.carol.customshop.entity.ProductTypeAttributeOption;
 import com.carol.customshop.entity.ProductTypeConfig;
 import com.carol.customshop.repository.NotAllowedCombinationRepository;
+import com.carol.customshop.repository.ProductNotAllowedCombinationRepository;
 import com.carol.customshop.repository.ProductTypeAttributeOptionRepository;
 import com.carol.customshop.repository.ProductTypeAttributeRepository;
 import com.carol.customshop.repository.ProductTypeRepository;
+import com.carol.customshop.service.CatalogDictionary;
 import com.carol.customshop.service.CustomizableProductTypeService;
 import com.carol.customshop.service.NotCustomizableProductTypeService;
 import com.carol.customshop.service.ProductTypeService;
 import com.carol.customshop.service.ProductTypeServiceFactory;
+import com.carol.customshop.service.constraint.ProductConstraintIndexService;
 import com.carol.customshop.service.interfaces.IProductTypeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +24,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -47,9 +51,18 @@ class ProductTypeServiceTest {
     @Mock
     private NotAllowedCombinationRepository notAllowedCombinationRepository;
 
+    @Mock
+    private ProductNotAllowedCombinationRepository productNotAllowedCombinationRepository;
+
     @Mock
     private ProductTypeServiceFactory productTypeServiceFactory;
 
+    @Mock
+    private ProductConstraintIndexService productConstraintIndexService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private UUID fullyCustomizableProductTypeId;
     private ProductType fullyCustomizableProductType;
 
@@ -77,8 +90,12 @@ class ProductTypeServiceTest {
             IProductTypeService cService = new CustomizableProductTypeService(
                     productTypeRepository,
                     notAllowedCombinationRepository,
-                    productTypeAttributeRepository,
-                    productTypeAttributeOptionRepository
+                    new CatalogDictionary(
+                            productTypeAttributeRepository,
+                            productTypeAttributeOptionRepository,
+                            notAllowedCombinationRepository,
+                            100
+                    )
             );
             when(productTypeServiceFactory.getService(eq("fully_customizable")))
                     .thenReturn(cService);
@@ -0,0 +1,110 @@
+package com.carol.customshop.unit.service;
+
+import com.carol.customshop.service.RequestCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer<String, String> coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer<>("test", meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneComputationBetweenConcurrentCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callConcurrently(() -> coalescer.get("product-1", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "details";
+        }));
+
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("details", result.get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("coalescing.requests").tag("result", "computed").functionCounter().count());
+        assertEquals(CALLERS - 1.0,
+                meterRegistry.get("coalescing.requests").tag("result", "coalesced").functionCounter().count());
+        assertEquals(0.0, meterRegistry.get("coalescing.in-flight").gauge().value());
+
+        // Nothing is kept: the next request computes again
+        assertEquals("again", coalescer.get("product-1", () -> "again"));
+        assertEquals(2, coalescer.getComputedCount());
+    }
+
+    @Test
+    void shouldGiveEveryWaiterTheComputationsException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callConcurrently(() -> coalescer.get("missing", () -> {
+            await(release);
+            throw new IllegalArgumentException("Product not found with ID: missing");
+        }));
+
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+        assertEquals("found", coalescer.get("missing", () -> "found"));
+    }
+
+    private List<Future<String>> callConcurrently(Callable<String> call) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call));
+        }
+        return results;
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescer.getCoalescedCount() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Callers were not coalesced");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}